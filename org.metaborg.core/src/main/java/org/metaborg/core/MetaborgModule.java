@@ -48,6 +48,7 @@ import org.metaborg.core.processing.IProcessor;
 import org.metaborg.core.processing.IProcessorRunner;
 import org.metaborg.core.processing.LanguageChangeProcessor;
 import org.metaborg.core.processing.ProcessorRunner;
+import org.metaborg.core.processing.ResultCacheConfig;
 import org.metaborg.core.processing.analyze.AnalysisResultProcessor;
 import org.metaborg.core.processing.analyze.IAnalysisResultProcessor;
 import org.metaborg.core.processing.analyze.IAnalysisResultRequester;
@@ -124,6 +125,7 @@ public class MetaborgModule extends AbstractModule {
         bindDependency();
         bindSourceText();
         bindAnalysis();
+        bindResultCache();
         bindBuilder();
         bindProcessor();
         bindProcessorRunner();
@@ -219,6 +221,10 @@ public class MetaborgModule extends AbstractModule {
         bind(IAnalysisService.class).to(AnalysisService.class).in(Singleton.class);
     }
 
+    protected void bindResultCache() {
+        bind(ResultCacheConfig.class).toInstance(new ResultCacheConfig());
+    }
+
     protected void bindBuilder() {
         bind(ParseResultProcessor.class).in(Singleton.class);
         bind(IParseResultRequester.class).to(ParseResultProcessor.class);
@@ -95,11 +95,38 @@ public class BuildInput {
     public final Set<ILanguageImpl> pardonedLanguages;
 
 
+    /**
+     * Number of worker threads used to parse changed resources, or 1 to parse on the calling thread. Parse results are
+     * always processed in the order of the source changes. Parallel parsing requires the syntax service to support
+     * concurrent parsing.
+     */
+    public final int parseThreads;
+
+    /**
+     * Number of worker threads used to analyze distinct contexts, or 1 to analyze on the calling thread. Each context
+     * is analyzed under its own write lock, and analysis results are always processed in the order of the contexts.
+     */
+    public final int analyzeThreads;
+
+    /**
+     * Whether transformations only write output files when their content changes. Unchanged output files keep their
+     * modification time, and are not reported as new resources of the build.
+     */
+    public final boolean writeIfChanged;
+
+    /**
+     * Number of worker threads used to transform units, or 1 to transform on the calling thread. Each transformation
+     * runs on its own Stratego runtime, and transform results are always processed in the order of their inputs.
+     */
+    public final int transformThreads;
+
+
     public BuildInput(BuildState state, IProject project, Iterable<ResourceChange> resourceChanges,
         Multimap<ILanguageImpl, FileObject> includePaths, BuildOrder buildOrder, @Nullable FileSelector parseSelector,
         boolean analyze, @Nullable FileSelector analyzeSelector, boolean transform,
         @Nullable FileSelector transformSelector, Iterable<ITransformGoal> transformGoals,
-        @Nullable IMessagePrinter messagePrinter, boolean throwOnErrors, Set<ILanguageImpl> pardonedLanguages) {
+        @Nullable IMessagePrinter messagePrinter, boolean throwOnErrors, Set<ILanguageImpl> pardonedLanguages,
+        int parseThreads, int analyzeThreads, boolean writeIfChanged, int transformThreads) {
         this.state = state;
         this.project = project;
         this.sourceChanges = resourceChanges;
@@ -114,5 +141,20 @@ public class BuildInput {
         this.messagePrinter = messagePrinter;
         this.throwOnErrors = throwOnErrors;
         this.pardonedLanguages = pardonedLanguages;
+        this.parseThreads = parseThreads;
+        this.analyzeThreads = analyzeThreads;
+        this.writeIfChanged = writeIfChanged;
+        this.transformThreads = transformThreads;
+    }
+
+    /**
+     * Creates a copy of this input with different source changes, include paths, and build order, keeping all other
+     * options of this input.
+     */
+    public BuildInput withSources(Iterable<ResourceChange> sourceChanges,
+        Multimap<ILanguageImpl, FileObject> includePaths, BuildOrder buildOrder) {
+        return new BuildInput(state, project, sourceChanges, includePaths, buildOrder, selector, analyze,
+            analyzeSelector, transform, transformSelector, transformGoals, messagePrinter, throwOnErrors,
+            pardonedLanguages, parseThreads, analyzeThreads, writeIfChanged, transformThreads);
     }
 }
@@ -36,6 +36,7 @@ public class BuildInputBuilder {
     private final IProject project;
 
     private BuildState state;
+    private boolean contentDigests;
 
     private Set<ILanguageImpl> languages;
     private boolean addDependencyLanguages;
@@ -60,6 +61,11 @@ public class BuildInputBuilder {
     private Set<ILanguageImpl> pardonedLanguages;
     private Set<String> pardonedLanguageStrings;
 
+    private int parseThreads;
+    private int analyzeThreads;
+    private boolean writeIfChanged;
+    private int transformThreads;
+
 
     @Inject public BuildInputBuilder(IProject project) {
         this.project = project;
@@ -72,6 +78,7 @@ public class BuildInputBuilder {
      */
     public BuildInputBuilder reset() {
         state = null;
+        contentDigests = false;
         languages = Sets.newHashSet();
         addDependencyLanguages = true;
         includePaths = HashMultimap.create();
@@ -88,6 +95,10 @@ public class BuildInputBuilder {
         throwOnErrors = false;
         pardonedLanguages = Sets.newHashSet();
         pardonedLanguageStrings = Sets.newHashSet();
+        parseThreads = 1;
+        analyzeThreads = 1;
+        writeIfChanged = false;
+        transformThreads = 1;
         return this;
     }
 
@@ -100,6 +111,16 @@ public class BuildInputBuilder {
         return this;
     }
 
+    /**
+     * Sets whether digests of file contents are used to detect changes, such that files whose modification time changed
+     * but whose contents are the same are not rebuilt. Only applies when no build state is set with
+     * {@link #withState(BuildState)}, a given build state keeps its own setting.
+     */
+    public BuildInputBuilder withContentDigests(boolean contentDigests) {
+        this.contentDigests = contentDigests;
+        return this;
+    }
+
     /**
      * Sets the languages to given language implementations.
      */
@@ -384,6 +405,63 @@ public class BuildInputBuilder {
     }
 
 
+    /**
+     * Sets the number of threads used to parse changed resources. Defaults to 1, which parses on the calling thread.
+     */
+    public BuildInputBuilder withParseThreads(int parseThreads) {
+        this.parseThreads = parseThreads;
+        return this;
+    }
+
+    /**
+     * Sets the number of threads used to parse changed resources to the number of available processors.
+     */
+    public BuildInputBuilder withParallelParsing() {
+        return withParseThreads(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Sets the number of threads used to analyze distinct contexts. Defaults to 1, which analyzes on the calling
+     * thread.
+     */
+    public BuildInputBuilder withAnalyzeThreads(int analyzeThreads) {
+        this.analyzeThreads = analyzeThreads;
+        return this;
+    }
+
+    /**
+     * Sets the number of threads used to analyze distinct contexts to the number of available processors.
+     */
+    public BuildInputBuilder withParallelAnalysis() {
+        return withAnalyzeThreads(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Sets the number of threads used to transform units. Defaults to 1, which transforms on the calling thread.
+     */
+    public BuildInputBuilder withTransformThreads(int transformThreads) {
+        this.transformThreads = transformThreads;
+        return this;
+    }
+
+    /**
+     * Sets the number of threads used to transform units to the number of available processors.
+     */
+    public BuildInputBuilder withParallelTransformation() {
+        return withTransformThreads(Runtime.getRuntime().availableProcessors());
+    }
+
+
+    /**
+     * Sets whether transformations only write output files when their content changes. Defaults to false, which always
+     * writes output files.
+     */
+    public BuildInputBuilder withWriteIfChanged(boolean writeIfChanged) {
+        this.writeIfChanged = writeIfChanged;
+        return this;
+    }
+
+
     /**
      * Builds a build input object from the current state.
      * 
@@ -393,7 +471,7 @@ public class BuildInputBuilder {
     public BuildInput build(IDependencyService dependencyService, ILanguagePathService languagePathService)
         throws MetaborgException {
         if(state == null) {
-            state = new BuildState();
+            state = new BuildState(contentDigests);
         }
 
         if(addDependencyLanguages) {
@@ -423,6 +501,6 @@ public class BuildInputBuilder {
 
         return new BuildInput(state, this.project, sourceChanges, includePaths, new BuildOrder(languages), selector,
             analyze, analyzeSelector, transform, transformSelector, transformGoals, messagePrinter, throwOnErrors,
-            pardonedLanguages);
+            pardonedLanguages, parseThreads, analyzeThreads, writeIfChanged, transformThreads);
     }
 }
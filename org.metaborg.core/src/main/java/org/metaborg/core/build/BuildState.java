@@ -9,14 +9,29 @@ import org.metaborg.core.resource.IResourceService;
 import com.google.common.collect.Maps;
 
 public class BuildState {
+    /**
+     * Whether digests of file contents are kept, such that files whose modification time changed, but whose contents
+     * did not, are not considered to be changed.
+     */
+    public final boolean contentDigests;
+
     private final Map<ILanguageImpl, LanguageBuildState> languageBuildStates = Maps.newHashMap();
 
 
+    public BuildState(boolean contentDigests) {
+        this.contentDigests = contentDigests;
+    }
+
+    public BuildState() {
+        this(false);
+    }
+
+
     public LanguageBuildState get(IResourceService resourceService,
         ILanguageIdentifierService languageIdentifierService, ILanguageImpl language) {
         LanguageBuildState state = languageBuildStates.get(language);
         if(state == null) {
-            state = new LanguageBuildState(resourceService, languageIdentifierService, language);
+            state = new LanguageBuildState(resourceService, languageIdentifierService, language, contentDigests);
             languageBuildStates.put(language, state);
         }
         return state;
@@ -2,8 +2,14 @@ package org.metaborg.core.build;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nullable;
 
@@ -44,9 +50,11 @@ import org.metaborg.core.syntax.IInputUnit;
 import org.metaborg.core.syntax.IParseUnit;
 import org.metaborg.core.syntax.ISyntaxService;
 import org.metaborg.core.syntax.ParseException;
+import org.metaborg.core.transform.ITransformConfig;
 import org.metaborg.core.transform.ITransformOutput;
 import org.metaborg.core.transform.ITransformService;
 import org.metaborg.core.transform.ITransformUnit;
+import org.metaborg.core.transform.TransformConfig;
 import org.metaborg.core.transform.TransformException;
 import org.metaborg.core.unit.IUnitService;
 import org.metaborg.util.RefBool;
@@ -57,6 +65,7 @@ import org.metaborg.util.log.LoggerUtils;
 import org.metaborg.util.resource.FileSelectorUtils;
 import org.metaborg.util.task.ICancel;
 import org.metaborg.util.task.IProgress;
+import org.metaborg.util.task.NullProgress;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Iterables;
@@ -141,7 +150,7 @@ public class Builder<I extends IInputUnit, P extends IParseUnit, A extends IAnal
         cancel.throwIfCancelled();
         logger.info("Building " + input.project.location());
 
-        final BuildState newState = new BuildState();
+        final BuildState newState = new BuildState(input.state.contentDigests);
         final IBuildOutputInternal<P, A, AU, T> buildOutput = buildOutputProvider.get();
         buildOutput.setState(newState);
 
@@ -192,6 +201,8 @@ public class Builder<I extends IInputUnit, P extends IParseUnit, A extends IAnal
         for(ResourceChange change : changes) {
             cancel.throwIfCancelled();
             final FileObject resource = change.resource;
+            // Changes may not update the modification time or size of resources, so never reuse their cached text.
+            sourceTextService.invalidate(resource);
             if(selector != null) {
                 try {
                     if(!FileSelectorUtils.include(selector, resource, location)) {
@@ -298,7 +309,7 @@ public class Builder<I extends IInputUnit, P extends IParseUnit, A extends IAnal
         for(T transformUnit : allTransformUnits) {
             for(ITransformOutput transformOutput : transformUnit.outputs()) {
                 final FileObject outputFile = transformOutput.output();
-                if(outputFile != null) {
+                if(outputFile != null && transformOutput.changed()) {
                     newResources.add(outputFile);
                 }
             }
@@ -320,52 +331,90 @@ public class Builder<I extends IInputUnit, P extends IParseUnit, A extends IAnal
         progress.setDescription("Parsing " + size + " file(s) of " + langImpl.belongsTo().name());
         logger.debug("Parsing {} resources", size);
 
-        for(IdentifiedResourceChange identifiedChange : changes) {
-            cancel.throwIfCancelled();
-            final ResourceChange change = identifiedChange.change;
-            final FileObject resource = change.resource;
-            final ILanguageImpl dialect = identifiedChange.dialect;
-            final ResourceChangeKind changeKind = change.kind;
+        final int threads = Math.min(input.parseThreads, size);
+        final ExecutorService executor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        try {
+            // When parsing in parallel, submit all parse jobs up front. Results are consumed in the original order of
+            // changes below, such that parse result updates and the build output remain deterministic.
+            final List<Future<P>> parseJobs;
+            if(executor != null) {
+                logger.debug("Parsing with {} threads", threads);
+                parseJobs = Lists.newArrayListWithCapacity(size);
+                for(IdentifiedResourceChange identifiedChange : changes) {
+                    cancel.throwIfCancelled();
+                    final ResourceChange change = identifiedChange.change;
+                    if(change.kind == ResourceChangeKind.Delete) {
+                        parseJobs.add(null);
+                    } else {
+                        final FileObject resource = change.resource;
+                        final ILanguageImpl dialect = identifiedChange.dialect;
+                        parseResultUpdater.invalidate(resource);
+                        parseJobs.add(executor
+                            .submit(() -> parseResource(resource, langImpl, dialect, new NullProgress(), cancel)));
+                    }
+                }
+            } else {
+                parseJobs = null;
+            }
 
-            try {
-                if(changeKind == ResourceChangeKind.Delete) {
-                    parseResultUpdater.remove(resource);
-                    removedResources.add(resource.getName());
-                    // LEGACY: add empty parse result, to indicate to analysis that this resource was
-                    // removed. There is special handling in updating the analysis result processor, the marker
-                    // updater, and the compiler, to exclude removed resources.
-                    final I inputUnit = unitService.emptyInputUnit(resource, langImpl, dialect);
-                    final P emptyParseResult = unitService.emptyParseUnit(inputUnit);
-                    allParseUnits.add(emptyParseResult);
-                    // Don't add resource as changed when it has been deleted, because it does not exist any more.
-                    progress.work(1);
-                } else {
-                    final String sourceText = sourceTextService.text(resource);
-                    parseResultUpdater.invalidate(resource);
-                    final I inputUnit = unitService.inputUnit(resource, sourceText, langImpl, dialect);
-                    final P parseResult = syntaxService.parse(inputUnit, progress.subProgress(1), cancel);
-                    final boolean noErrors = printMessages(parseResult.messages(), input, pardoned);
+            int index = 0;
+            for(IdentifiedResourceChange identifiedChange : changes) {
+                cancel.throwIfCancelled();
+                final ResourceChange change = identifiedChange.change;
+                final FileObject resource = change.resource;
+                final ILanguageImpl dialect = identifiedChange.dialect;
+                final ResourceChangeKind changeKind = change.kind;
+                final Future<P> parseJob = parseJobs != null ? parseJobs.get(index) : null;
+                ++index;
+
+                try {
+                    if(changeKind == ResourceChangeKind.Delete) {
+                        parseResultUpdater.remove(resource);
+                        removedResources.add(resource.getName());
+                        // LEGACY: add empty parse result, to indicate to analysis that this resource was
+                        // removed. There is special handling in updating the analysis result processor, the marker
+                        // updater, and the compiler, to exclude removed resources.
+                        final I inputUnit = unitService.emptyInputUnit(resource, langImpl, dialect);
+                        final P emptyParseResult = unitService.emptyParseUnit(inputUnit);
+                        allParseUnits.add(emptyParseResult);
+                        // Don't add resource as changed when it has been deleted, because it does not exist any more.
+                        progress.work(1);
+                    } else {
+                        final P parseResult;
+                        if(parseJob != null) {
+                            parseResult = awaitParse(parseJob);
+                            progress.work(1);
+                        } else {
+                            parseResultUpdater.invalidate(resource);
+                            parseResult = parseResource(resource, langImpl, dialect, progress.subProgress(1), cancel);
+                        }
+                        final boolean noErrors = printMessages(parseResult.messages(), input, pardoned);
+                        success.and(noErrors);
+                        allParseUnits.add(parseResult);
+                        parseResultUpdater.update(resource, parseResult);
+                        changedResources.add(resource);
+                    }
+                } catch(ParseException e) {
+                    final String message = logger.format("Parsing {} failed unexpectedly", resource);
+                    final boolean noErrors = printMessageAndMaybeThrow(resource, message, e, input, pardoned);
                     success.and(noErrors);
-                    allParseUnits.add(parseResult);
-                    parseResultUpdater.update(resource, parseResult);
+                    parseResultUpdater.error(resource, e);
+                    extraMessages.add(MessageFactory.newParseErrorAtTop(resource, "Parsing failed unexpectedly", e));
+                    changedResources.add(resource);
+                } catch(IOException e) {
+                    final String message = logger.format("Getting source text for {} failed unexpectedly", resource);
+                    final boolean noErrors = printMessageAndMaybeThrow(resource, message, e, input, pardoned);
+                    success.and(noErrors);
+                    final I inputUnit = unitService.emptyInputUnit(resource, langImpl, dialect);
+                    parseResultUpdater.error(resource, new ParseException(inputUnit, e));
+                    extraMessages
+                        .add(MessageFactory.newParseErrorAtTop(resource, "Getting source text failed unexpectedly", e));
                     changedResources.add(resource);
                 }
-            } catch(ParseException e) {
-                final String message = logger.format("Parsing {} failed unexpectedly", resource);
-                final boolean noErrors = printMessageAndMaybeThrow(resource, message, e, input, pardoned);
-                success.and(noErrors);
-                parseResultUpdater.error(resource, e);
-                extraMessages.add(MessageFactory.newParseErrorAtTop(resource, "Parsing failed unexpectedly", e));
-                changedResources.add(resource);
-            } catch(IOException e) {
-                final String message = logger.format("Getting source text for {} failed unexpectedly", resource);
-                final boolean noErrors = printMessageAndMaybeThrow(resource, message, e, input, pardoned);
-                success.and(noErrors);
-                final I inputUnit = unitService.emptyInputUnit(resource, langImpl, dialect);
-                parseResultUpdater.error(resource, new ParseException(inputUnit, e));
-                extraMessages
-                    .add(MessageFactory.newParseErrorAtTop(resource, "Getting source text failed unexpectedly", e));
-                changedResources.add(resource);
+            }
+        } finally {
+            if(executor != null) {
+                shutdownAndAwait(executor);
             }
         }
         if(input.throwOnErrors && !success.get()) {
@@ -374,6 +423,33 @@ public class Builder<I extends IInputUnit, P extends IParseUnit, A extends IAnal
         return allParseUnits;
     }
 
+    private P parseResource(FileObject resource, ILanguageImpl langImpl, @Nullable ILanguageImpl dialect,
+        IProgress progress, ICancel cancel) throws IOException, ParseException, InterruptedException {
+        final String sourceText = sourceTextService.text(resource);
+        final I inputUnit = unitService.inputUnit(resource, sourceText, langImpl, dialect);
+        return syntaxService.parse(inputUnit, progress, cancel);
+    }
+
+    private P awaitParse(Future<P> parseJob) throws IOException, ParseException, InterruptedException {
+        try {
+            return parseJob.get();
+        } catch(ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if(cause instanceof ParseException) {
+                throw (ParseException) cause;
+            } else if(cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if(cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            } else if(cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if(cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new MetaborgRuntimeException("Parsing failed unexpectedly", cause);
+        }
+    }
+
     private Multimap<IContext, A> analyze(BuildInput input, ILanguageImpl langImpl, FileObject location,
         Multimap<IContext, P> sourceParseUnits, Iterable<P> includeParseUnits, boolean pardoned,
         Collection<AU> analyzeUpdates, Set<FileName> removedResources, Collection<IMessage> extraMessages,
@@ -390,16 +466,45 @@ public class Builder<I extends IInputUnit, P extends IParseUnit, A extends IAnal
         progress.setDescription("Analyzing " + size + " file(s) of " + langImpl.belongsTo().name());
         logger.debug("Analyzing {} parse results in {} context(s)", size, toAnalyzeSize);
 
-        for(Entry<IContext, Collection<P>> entry : toAnalyze) {
-            cancel.throwIfCancelled();
-            final IContext context = entry.getKey();
-            final Iterable<P> parseResults = Iterables.concat(entry.getValue(), includeParseUnits);
+        final int threads = Math.min(input.analyzeThreads, toAnalyzeSize);
+        final ExecutorService executor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        try {
+            // When analyzing in parallel, submit analysis jobs for all contexts up front. Contexts do not share state,
+            // and each job holds the write lock of its context. Results are processed in the original order of
+            // contexts below, such that analysis result updates and the build output remain deterministic.
+            final List<Future<ContextAnalysis>> analysisJobs;
+            if(executor != null) {
+                logger.debug("Analyzing with {} threads", threads);
+                analysisJobs = Lists.newArrayListWithCapacity(toAnalyzeSize);
+                for(Entry<IContext, Collection<P>> entry : toAnalyze) {
+                    cancel.throwIfCancelled();
+                    final IContext context = entry.getKey();
+                    final Iterable<P> parseResults = Iterables.concat(entry.getValue(), includeParseUnits);
+                    analysisJobs
+                        .add(executor.submit(() -> analyzeContext(context, parseResults, new NullProgress(), cancel)));
+                }
+            } else {
+                analysisJobs = null;
+            }
 
-            try {
-                try(IClosableLock lock = context.write()) {
-                    analysisResultUpdater.invalidate(parseResults);
-                    final IAnalyzeResults<A, AU> results =
-                        analysisService.analyzeAll(parseResults, context, progress.subProgress(1), cancel);
+            int index = 0;
+            for(Entry<IContext, Collection<P>> entry : toAnalyze) {
+                cancel.throwIfCancelled();
+                final IContext context = entry.getKey();
+                final Iterable<P> parseResults = Iterables.concat(entry.getValue(), includeParseUnits);
+                final Future<ContextAnalysis> analysisJob = analysisJobs != null ? analysisJobs.get(index) : null;
+                ++index;
+
+                final ContextAnalysis analysis;
+                if(analysisJob != null) {
+                    analysis = awaitAnalysis(analysisJob);
+                    progress.work(1);
+                } else {
+                    analysis = analyzeContext(context, parseResults, progress.subProgress(1), cancel);
+                }
+
+                final IAnalyzeResults<A, AU> results = analysis.results;
+                if(results != null) {
                     for(A result : results.results()) {
                         cancel.throwIfCancelled();
                         final boolean noErrors = printMessages(result.messages(), input, pardoned);
@@ -415,22 +520,30 @@ public class Builder<I extends IInputUnit, P extends IParseUnit, A extends IAnal
                         // analysisResultUpdater.update(update, removedResources);
                         analyzeUpdates.add(update);
                     }
-                } finally {
-                    context.persist();
                 }
-            } catch(AnalysisException e) {
-                final String message = "Analysis failed unexpectedly";
-                logger.error(message, e);
-                final boolean noErrors = printMessageAndMaybeThrow(message, e, input, pardoned);
-                success.and(noErrors);
-                analysisResultUpdater.error(parseResults, e);
-                extraMessages.add(MessageFactory.newAnalysisErrorAtTop(location, message, e));
-            } catch(IOException e) {
-                final String message = "Persisting analysis data failed unexpectedly";
-                logger.error(message, e);
-                final boolean noErrors = printMessageAndMaybeThrow(message, e, input, pardoned);
-                success.and(noErrors);
-                extraMessages.add(MessageFactory.newAnalysisErrorAtTop(location, message, e));
+
+                final AnalysisException analysisException = analysis.analysisException;
+                if(analysisException != null) {
+                    final String message = "Analysis failed unexpectedly";
+                    logger.error(message, analysisException);
+                    final boolean noErrors = printMessageAndMaybeThrow(message, analysisException, input, pardoned);
+                    success.and(noErrors);
+                    analysisResultUpdater.error(parseResults, analysisException);
+                    extraMessages.add(MessageFactory.newAnalysisErrorAtTop(location, message, analysisException));
+                }
+
+                final IOException persistException = analysis.persistException;
+                if(persistException != null) {
+                    final String message = "Persisting analysis data failed unexpectedly";
+                    logger.error(message, persistException);
+                    final boolean noErrors = printMessageAndMaybeThrow(message, persistException, input, pardoned);
+                    success.and(noErrors);
+                    extraMessages.add(MessageFactory.newAnalysisErrorAtTop(location, message, persistException));
+                }
+            }
+        } finally {
+            if(executor != null) {
+                shutdownAndAwait(executor);
             }
         }
         if(input.throwOnErrors && !success.get()) {
@@ -439,6 +552,60 @@ public class Builder<I extends IInputUnit, P extends IParseUnit, A extends IAnal
         return allAnalyzeUnits;
     }
 
+    /**
+     * Result of analyzing a single context. Analysis and persisting failures are captured instead of thrown, such that
+     * they can be reported in the order of contexts when analyzing in parallel.
+     */
+    private class ContextAnalysis {
+        public final @Nullable IAnalyzeResults<A, AU> results;
+        public final @Nullable AnalysisException analysisException;
+        public final @Nullable IOException persistException;
+
+
+        public ContextAnalysis(@Nullable IAnalyzeResults<A, AU> results,
+            @Nullable AnalysisException analysisException, @Nullable IOException persistException) {
+            this.results = results;
+            this.analysisException = analysisException;
+            this.persistException = persistException;
+        }
+    }
+
+    private ContextAnalysis analyzeContext(IContext context, Iterable<P> parseResults, IProgress progress,
+        ICancel cancel) throws InterruptedException {
+        IAnalyzeResults<A, AU> results = null;
+        AnalysisException analysisException = null;
+        IOException persistException = null;
+        try(IClosableLock lock = context.write()) {
+            analysisResultUpdater.invalidate(parseResults);
+            results = analysisService.analyzeAll(parseResults, context, progress, cancel);
+        } catch(AnalysisException e) {
+            analysisException = e;
+        } finally {
+            try {
+                context.persist();
+            } catch(IOException e) {
+                persistException = e;
+            }
+        }
+        return new ContextAnalysis(results, analysisException, persistException);
+    }
+
+    private ContextAnalysis awaitAnalysis(Future<ContextAnalysis> analysisJob) throws InterruptedException {
+        try {
+            return analysisJob.get();
+        } catch(ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if(cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            } else if(cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if(cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new MetaborgRuntimeException("Analysis failed unexpectedly", cause);
+        }
+    }
+
     private Collection<T> transform(BuildInput input, ILanguageImpl langImpl, FileObject location,
         Multimap<IContext, P> parseUnits, Multimap<IContext, A> allAnalysisUnits, Set<FileName> includeFiles, boolean pardoned,
         Set<FileName> removedResources, Collection<IMessage> extraMessages, RefBool success, IProgress progress,
@@ -452,57 +619,176 @@ public class Builder<I extends IInputUnit, P extends IParseUnit, A extends IAnal
         }
         progress.setDescription("Running " + numberOfGoals + " transformations of " + langImpl.belongsTo().name());
         logger.debug("Running {} transformations", numberOfGoals);
+        final ITransformConfig transformConfig = new TransformConfig(null, false, input.writeIfChanged);
+
+        // When transforming in parallel, the transformations of a context are submitted up front, each running on its
+        // own Stratego runtime. Results are consumed in the original order of units below, such that messages,
+        // failures, and the build output remain deterministic. Each job takes the read lock of its context itself; the
+        // submitting thread does not hold it while waiting on jobs, since a queued writer would then block the read
+        // locks that jobs take, while that writer waits on the submitting thread.
+        final int threads = input.transformThreads;
+        final ExecutorService executor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        if(executor != null) {
+            logger.debug("Transforming with {} threads", threads);
+        }
+        try {
+            for(ITransformGoal goal : input.transformGoals) {
+                cancel.throwIfCancelled();
+                // The two branches of this `if` are almost completely the same,
+                // except one works on parse units, the other in analysis units.
+                // They should be kept in sync!
+                if(transformService.requiresAnalysis(langImpl, goal)) {
+                    final int size = allAnalysisUnits.size();
+                    if(size == 0) {
+                        continue;
+                    }
+                    final IProgress transformProgress = progress.subProgress(1);
+                    transformProgress.setDescription("Compiling " + size + " file(s) with " + goal);
+                    logger.debug("Compiling {} analysis results", size);
 
+                    for(Entry<IContext, Collection<A>> entry : allAnalysisUnits.asMap().entrySet()) {
+                        cancel.throwIfCancelled();
+                        final IContext context = entry.getKey();
+                        final Collection<A> analysisResults = entry.getValue();
 
-        for(ITransformGoal goal : input.transformGoals) {
-            cancel.throwIfCancelled();
-            // The two branches of this `if` are almost completely the same,
-            // except one works on parse units, the other in analysis units.
-            // They should be kept in sync!
-            if(transformService.requiresAnalysis(langImpl, goal)) {
-                final int size = allAnalysisUnits.size();
-                if(size == 0) {
-                    continue;
-                }
-                final IProgress transformProgress = progress.subProgress(1);
-                transformProgress.setDescription("Compiling " + size + " file(s) with " + goal);
-                logger.debug("Compiling {} analysis results", size);
+                        if(!transformService.available(context.language(), goal)) {
+                            logger.trace("No {} transformation required for {}", goal, context.language());
+                            transformProgress.work(analysisResults.size());
+                            continue;
+                        }
 
-                for(Entry<IContext, Collection<A>> entry : allAnalysisUnits.asMap().entrySet()) {
-                    cancel.throwIfCancelled();
-                    final IContext context = entry.getKey();
-                    final Collection<A> analysisResults = entry.getValue();
+                        final List<Future<Collection<TA>>> transformJobs;
+                        if(executor != null) {
+                            transformJobs = Lists.newArrayListWithCapacity(analysisResults.size());
+                            for(A analysisResult : analysisResults) {
+                                if(skipTransform(analysisResult.source(), analysisResult.valid(), removedResources,
+                                    includeFiles)) {
+                                    transformJobs.add(null);
+                                } else {
+                                    transformJobs.add(executor.submit(() -> {
+                                        try(IClosableLock jobLock = context.read()) {
+                                            return transformService.transform(analysisResult, context, goal,
+                                                transformConfig);
+                                        }
+                                    }));
+                                }
+                            }
+                        } else {
+                            transformJobs = null;
+                        }
 
-                    if(!transformService.available(context.language(), goal)) {
-                        logger.trace("No {} transformation required for {}", goal, context.language());
-                        transformProgress.work(analysisResults.size());
+                        // Only hold the read lock here when transforming sequentially, jobs take it themselves.
+                        final IClosableLock lock;
+                        if(transformJobs == null) {
+                            lock = context.read();
+                        } else {
+                            lock = null;
+                        }
+                        try {
+                            int index = 0;
+                            for(A analysisResult : analysisResults) {
+                                cancel.throwIfCancelled();
+                                final Future<Collection<TA>> transformJob =
+                                    transformJobs != null ? transformJobs.get(index) : null;
+                                ++index;
+
+                                // Jobs were only submitted for results that are not skipped.
+                                final FileObject source = analysisResult.source();
+                                if(transformJobs != null ? transformJob == null
+                                    : skipTransform(source, analysisResult.valid(), removedResources, includeFiles)) {
+                                    transformProgress.work(1);
+                                    continue;
+                                }
+                                final FileName name = source.getName();
+
+                                try {
+                                    final Collection<TA> results = transformJob != null ? awaitTransform(transformJob)
+                                        : transformService.transform(analysisResult, context, goal, transformConfig);
+                                    for(TA result : results) {
+                                        final boolean noErrors =
+                                            printMessages(result.messages(), input, pardoned);
+                                            if(input.throwOnErrors && !noErrors) {
+                                                throw new MetaborgRuntimeException(
+                                                    goal + " transformation produced errors");
+                                            }
+                                        success.and(noErrors);
+                                        @SuppressWarnings("unchecked") final T genericResult = (T) result;
+                                        allTransformUnits.add(genericResult);
+                                    }
+                                    transformProgress.work(1);
+                                } catch(TransformException e) {
+                                    final String message =
+                                        String.format("Transformation failed unexpectedly for %s", name);
+                                    logger.error(message, e);
+                                    final boolean noErrors =
+                                        printMessageAndMaybeThrow(source, message, e, input, pardoned);
+                                    success.and(noErrors);
+                                    extraMessages.add(MessageFactory.newBuilderErrorAtTop(location,
+                                        "Transformation failed unexpectedly", e));
+                                }
+                            }
+                        } finally {
+                            if(lock != null) {
+                                lock.close();
+                            }
+                        }
+                    }
+                } else {
+                    final int size = parseUnits.size();
+                    final IProgress transformProgress = progress.subProgress(1);
+                    if(size == 0) {
                         continue;
                     }
+                    transformProgress.setDescription("Compiling " + size + " file(s) with " + goal);
+                    logger.debug("Compiling {} parse results", size);
 
-                    try(IClosableLock lock = context.read()) {
-                        for(A analysisResult : analysisResults) {
-                            cancel.throwIfCancelled();
+                    for(Entry<IContext, Collection<P>> entry : parseUnits.asMap().entrySet()) {
+                        cancel.throwIfCancelled();
+                        final IContext context = entry.getKey();
+                        final Collection<P> parseResults = entry.getValue();
 
-                            final FileObject source = analysisResult.source();
-                            final FileName name = source.getName();
+                        if(!transformService.available(context.language(), goal)) {
+                            logger.trace("No {} transformation required for {}", goal, context.language());
+                            transformProgress.work(parseResults.size());
+                            continue;
+                        }
 
-                            if(removedResources.contains(name) || includeFiles.contains(name)) {
-                                // Don't compile removed resources, which the analysis results contain for legacy reasons.
-                                // Don't transform included resources, they should just be parsed and analyzed.
-                                transformProgress.work(1);
-                                continue;
+                        final List<Future<Collection<TP>>> transformJobs;
+                        if(executor != null) {
+                            transformJobs = Lists.newArrayListWithCapacity(parseResults.size());
+                            for(P parseResult : parseResults) {
+                                if(skipTransform(parseResult.source(), parseResult.valid(), removedResources,
+                                    includeFiles)) {
+                                    transformJobs.add(null);
+                                } else {
+                                    transformJobs.add(executor.submit(
+                                        () -> transformService.transform(parseResult, context, goal, transformConfig)));
+                                }
                             }
+                        } else {
+                            transformJobs = null;
+                        }
 
-                            if(!analysisResult.valid()) {
-                                logger.warn("Input result for {} is invalid, cannot transform it",
-                                    source != null ? source.getName().getPath() : "detached source");
+                        int index = 0;
+                        for(P parseResult : parseResults) {
+                            cancel.throwIfCancelled();
+                            final Future<Collection<TP>> transformJob =
+                                transformJobs != null ? transformJobs.get(index) : null;
+                            ++index;
+
+                            // Jobs were only submitted for results that are not skipped.
+                            final FileObject source = parseResult.source();
+                            if(transformJobs != null ? transformJob == null
+                                : skipTransform(source, parseResult.valid(), removedResources, includeFiles)) {
                                 transformProgress.work(1);
                                 continue;
                             }
+                            final FileName name = source.getName();
 
                             try {
-                                final Collection<TA> results = transformService.transform(analysisResult, context, goal);
-                                for(TA result : results) {
+                                final Collection<TP> results = transformJob != null ? awaitTransform(transformJob)
+                                    : transformService.transform(parseResult, context, goal, transformConfig);
+                                for(TP result : results) {
                                     final boolean noErrors =
                                         printMessages(result.messages(), input, pardoned);
                                         if(input.throwOnErrors && !noErrors) {
@@ -523,83 +809,80 @@ public class Builder<I extends IInputUnit, P extends IParseUnit, A extends IAnal
                             }
                         }
                     }
+                    // GTODO: also compile any affected sources
                 }
-            } else {
-                final int size = parseUnits.size();
-                final IProgress transformProgress = progress.subProgress(1);
-                if(size == 0) {
-                    continue;
-                }
-                transformProgress.setDescription("Compiling " + size + " file(s) with " + goal);
-                logger.debug("Compiling {} parse results", size);
-
-                for(Entry<IContext, Collection<P>> entry : parseUnits.asMap().entrySet()) {
-                    cancel.throwIfCancelled();
-                    final IContext context = entry.getKey();
-                    final Collection<P> parseResults = entry.getValue();
-
-                    if(!transformService.available(context.language(), goal)) {
-                        logger.trace("No {} transformation required for {}", goal, context.language());
-                        transformProgress.work(parseResults.size());
-                        continue;
-                    }
-
-                    for(P parseResult : parseResults) {
-                        cancel.throwIfCancelled();
-
-                        final FileObject source = parseResult.source();
-                        final FileName name = source.getName();
-
-                        if(removedResources.contains(name) || includeFiles.contains(name)) {
-                            // Don't compile removed resources, which the parse results contain for legacy reasons.
-                            // Don't transform included resources, they should just be parsed and analyzed.
-                            transformProgress.work(1);
-                            continue;
-                        }
+            }
+        } finally {
+            if(executor != null) {
+                shutdownAndAwait(executor);
+            }
+        }
 
-                        if(!parseResult.valid()) {
-                            logger.warn("Input result for {} is invalid, cannot transform it",
-                                source != null ? source.getName().getPath() : "detached source");
-                            transformProgress.work(1);
-                            continue;
-                        }
+        return allTransformUnits;
+    }
 
-                        try {
-                            final Collection<TP> results = transformService.transform(parseResult, context, goal);
-                            for(TP result : results) {
-                                final boolean noErrors =
-                                    printMessages(result.messages(), input, pardoned);
-                                    if(input.throwOnErrors && !noErrors) {
-                                        throw new MetaborgRuntimeException(goal + " transformation produced errors");
-                                    }
-                                success.and(noErrors);
-                                @SuppressWarnings("unchecked") final T genericResult = (T) result;
-                                allTransformUnits.add(genericResult);
-                            }
-                            transformProgress.work(1);
-                        } catch(TransformException e) {
-                            final String message = String.format("Transformation failed unexpectedly for %s", name);
-                            logger.error(message, e);
-                            final boolean noErrors = printMessageAndMaybeThrow(source, message, e, input, pardoned);
-                            success.and(noErrors);
-                            extraMessages.add(
-                                MessageFactory.newBuilderErrorAtTop(location, "Transformation failed unexpectedly", e));
-                        }
-                    }
+    /**
+     * Shuts down given executor, cancelling jobs that have not started yet, and waits for running jobs to finish, such
+     * that no job is still running, for example writing output files, after a build is aborted.
+     */
+    private static void shutdownAndAwait(ExecutorService executor) {
+        executor.shutdownNow();
+        boolean interrupted = false;
+        while(true) {
+            try {
+                if(executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS)) {
+                    break;
                 }
-                // GTODO: also compile any affected sources
+            } catch(InterruptedException e) {
+                interrupted = true;
             }
         }
+        if(interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
-        return allTransformUnits;
+    private boolean skipTransform(@Nullable FileObject source, boolean valid, Set<FileName> removedResources,
+        Set<FileName> includeFiles) {
+        if(source != null) {
+            final FileName name = source.getName();
+            if(removedResources.contains(name) || includeFiles.contains(name)) {
+                // Don't compile removed resources, which the input results contain for legacy reasons.
+                // Don't transform included resources, they should just be parsed and analyzed.
+                return true;
+            }
+        }
+        if(!valid) {
+            logger.warn("Input result for {} is invalid, cannot transform it",
+                source != null ? source.getName().getPath() : "detached source");
+            return true;
+        }
+        return source == null;
+    }
+
+    private <R> Collection<R> awaitTransform(Future<Collection<R>> transformJob)
+        throws TransformException, InterruptedException {
+        try {
+            return transformJob.get();
+        } catch(ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if(cause instanceof TransformException) {
+                throw (TransformException) cause;
+            } else if(cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            } else if(cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if(cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new MetaborgRuntimeException("Transformation failed unexpectedly", cause);
+        }
     }
 
     private boolean printMessages(Iterable<IMessage> messages, BuildInput input, boolean pardoned) {
         final IMessagePrinter printer = input.messagePrinter;
         if(printer != null) {
-            for(IMessage message : messages) {
-                printer.print(message, pardoned);
-            }
+            printer.print(messages, pardoned);
         }
 
         final boolean failed = !pardoned && MessageUtils.containsSeverity(messages, MessageSeverity.ERROR);
@@ -1,12 +1,16 @@
 package org.metaborg.core.build;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 
+import javax.annotation.Nullable;
+
+import org.apache.commons.vfs2.FileContent;
 import org.apache.commons.vfs2.FileName;
 import org.apache.commons.vfs2.FileObject;
-import org.apache.commons.vfs2.FileSystemException;
 import org.metaborg.core.language.ILanguageIdentifierService;
 import org.metaborg.core.language.ILanguageImpl;
 import org.metaborg.core.language.IdentifiedResource;
@@ -19,89 +23,135 @@ import org.metaborg.util.iterators.Iterables2;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 
 public class LanguageBuildState {
     private final IResourceService resourceService;
     private final ILanguageIdentifierService languageIdentifierService;
     private final ILanguageImpl language;
+    private final boolean contentDigests;
 
-    private final FilesBuildState source = new FilesBuildState();
-    private final FilesBuildState include = new FilesBuildState();
+    private final FilesBuildState source;
+    private final FilesBuildState include;
 
 
     public LanguageBuildState(IResourceService resourceService, ILanguageIdentifierService languageIdentifierService,
         ILanguageImpl language) {
+        this(resourceService, languageIdentifierService, language, false);
+    }
+
+    /**
+     * @param contentDigests
+     *            Whether to keep digests of file contents. When enabled, changes to files whose contents are the same
+     *            as in the previous build are ignored, even if their modification time changed.
+     */
+    public LanguageBuildState(IResourceService resourceService, ILanguageIdentifierService languageIdentifierService,
+        ILanguageImpl language, boolean contentDigests) {
+        this(resourceService, languageIdentifierService, language, contentDigests, new FilesBuildState(),
+            new FilesBuildState());
+    }
+
+    private LanguageBuildState(IResourceService resourceService,
+        ILanguageIdentifierService languageIdentifierService, ILanguageImpl language, boolean contentDigests,
+        FilesBuildState source, FilesBuildState include) {
         this.resourceService = resourceService;
         this.languageIdentifierService = languageIdentifierService;
         this.language = language;
+        this.contentDigests = contentDigests;
+        this.source = source;
+        this.include = include;
     }
 
+
     public LanguageBuildDiff diff(Iterable<IdentifiedResourceChange> sourceFileChanges,
         Iterable<IdentifiedResource> newIncludeFiles) {
-        final LanguageBuildState newState = copy();
-        sourceDiff(newState, sourceFileChanges);
-        final Iterable<IdentifiedResourceChange> includeFileChanges = includeDiff(newState, newIncludeFiles);
-        return new LanguageBuildDiff(newState, sourceFileChanges, includeFileChanges);
-    }
-
-    private LanguageBuildState copy() {
-        final LanguageBuildState newState =
-            new LanguageBuildState(resourceService, languageIdentifierService, language);
-        newState.source.add(this.source);
-        newState.include.add(this.include);
-
-        return newState;
+        // New source state only records the changes on top of this state, instead of copying all files.
+        final FilesBuildState newSource = new FilesBuildState(source);
+        final Iterable<IdentifiedResourceChange> sourceChanges = sourceDiff(newSource, sourceFileChanges);
+        // All include files are visited on each build, so the new include state is built from scratch.
+        final FilesBuildState newInclude = new FilesBuildState();
+        final Iterable<IdentifiedResourceChange> includeChanges = includeDiff(newInclude, newIncludeFiles);
+        final LanguageBuildState newState = new LanguageBuildState(resourceService, languageIdentifierService,
+            language, contentDigests, newSource, newInclude);
+        return new LanguageBuildDiff(newState, sourceChanges, includeChanges);
     }
 
-    private void sourceDiff(LanguageBuildState newState, Iterable<IdentifiedResourceChange> changes) {
+    private Iterable<IdentifiedResourceChange> sourceDiff(FilesBuildState newSource,
+        Iterable<IdentifiedResourceChange> changes) {
+        final Collection<IdentifiedResourceChange> sourceChanges = Lists.newArrayList();
         for(IdentifiedResourceChange identifiedChange : changes) {
             final ResourceChange change = identifiedChange.change;
             switch(change.kind) {
                 case Create:
-                    newState.source.add(change.resource);
+                    if(!update(newSource, change.resource) && contentDigests) {
+                        // File was recreated with the same contents.
+                        continue;
+                    }
+                    break;
+                case Modify:
+                    if(contentDigests && !update(newSource, change.resource)) {
+                        // Only the modification time changed.
+                        continue;
+                    }
                     break;
                 case Delete:
-                    newState.source.remove(change.resource.getName());
+                    newSource.remove(change.resource.getName());
                     break;
                 case Rename:
                     final FileObject from = change.from;
                     if(from != null) {
-                        newState.source.remove(from.getName());
+                        newSource.remove(from.getName());
                     }
-                    newState.source.add(change.to);
+                    update(newSource, change.to);
                     break;
                 case Copy:
-                    newState.source.add(change.to);
+                    update(newSource, change.to);
                     break;
                 default:
                     break;
             }
+            sourceChanges.add(identifiedChange);
         }
+        return sourceChanges;
+    }
+
+    /**
+     * Updates the stamp of given resource in given state.
+     * 
+     * @return True if the resource is new or changed, false if it is unchanged.
+     */
+    private boolean update(FilesBuildState state, FileObject resource) {
+        final FileName name = resource.getName();
+        final @Nullable FileStamp previous = state.get(name);
+        final FileStamp stamp = FileStamp.of(resource, previous, contentDigests);
+        state.put(name, stamp);
+        return previous == null || !previous.sameContent(stamp);
     }
 
-    private Iterable<IdentifiedResourceChange> includeDiff(LanguageBuildState newState,
+    private Iterable<IdentifiedResourceChange> includeDiff(FilesBuildState newInclude,
         Iterable<IdentifiedResource> newFiles) {
         final Collection<IdentifiedResourceChange> changes = Lists.newLinkedList();
-        final Set<FileName> existingFiles = Sets.newHashSet(include.files);
         for(IdentifiedResource identifiedResource : newFiles) {
             final FileObject resource = identifiedResource.resource;
             final FileName name = resource.getName();
-            final long newModification = newState.include.add(resource);
-            existingFiles.remove(name);
-            if(include.files.contains(name)) {
-                final long existingModification = include.modification.get(name);
-                if(existingModification != newModification) {
-                    changes.add(new IdentifiedResourceChange(new ResourceChange(resource, ResourceChangeKind.Modify),
-                        identifiedResource));
-                }
-            } else {
+            final @Nullable FileStamp existing = include.get(name);
+            final FileStamp stamp = FileStamp.of(resource, existing, contentDigests);
+            newInclude.put(name, stamp);
+            if(existing == null) {
                 changes.add(new IdentifiedResourceChange(new ResourceChange(resource, ResourceChangeKind.Create),
                     identifiedResource));
+            } else if(!existing.sameContent(stamp)) {
+                changes.add(new IdentifiedResourceChange(new ResourceChange(resource, ResourceChangeKind.Modify),
+                    identifiedResource));
             }
         }
 
-        for(FileName name : existingFiles) {
-            newState.include.remove(name);
+        for(FileName name : include.names()) {
+            if(newInclude.contains(name)) {
+                continue;
+            }
             final FileObject resource = resourceService.resolve(name.getURI());
             final IdentifiedResource identifiedResource =
                 languageIdentifierService.identifyToResource(resource, Iterables2.singleton(language));
@@ -115,32 +165,150 @@ public class LanguageBuildState {
     }
 }
 
+/**
+ * Stamps of files in a build. A state can be layered on top of a previous state, in which case it only stores the
+ * differences with that state. The previous state must not be modified any more after that.
+ */
 class FilesBuildState {
-    public final Set<FileName> files = Sets.newHashSet();
-    public final Map<FileName,Long> modification = Maps.newHashMap();
+    /**
+     * Maximum number of layers, after which the state is flattened to keep lookups fast.
+     */
+    private static final int maxDepth = 16;
 
+    private final @Nullable FilesBuildState parent;
+    private final int depth;
+    private final Map<FileName, FileStamp> stamps = Maps.newHashMap();
+    private final Set<FileName> removed = Sets.newHashSet();
 
-    public long add(FileObject resource) {
-        final FileName name = resource.getName();
-        files.add(name);
-        long newModification;
-        try {
-            newModification = resource.getContent().getLastModifiedTime();
-            modification.put(name, newModification);
-        } catch(FileSystemException e) {
-            newModification = Long.MAX_VALUE;
-            modification.put(name, Long.MIN_VALUE);
+
+    public FilesBuildState() {
+        this.parent = null;
+        this.depth = 0;
+    }
+
+    public FilesBuildState(FilesBuildState previous) {
+        if(previous.depth >= maxDepth) {
+            this.parent = null;
+            this.depth = 0;
+            previous.collect(stamps);
+        } else {
+            this.parent = previous;
+            this.depth = previous.depth + 1;
         }
-        return newModification;
     }
 
-    public void add(FilesBuildState state) {
-        this.files.addAll(state.files);
-        this.modification.putAll(state.modification);
+
+    public @Nullable FileStamp get(FileName name) {
+        for(FilesBuildState state = this; state != null; state = state.parent) {
+            final FileStamp stamp = state.stamps.get(name);
+            if(stamp != null) {
+                return stamp;
+            }
+            if(state.removed.contains(name)) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    public boolean contains(FileName name) {
+        return get(name) != null;
+    }
+
+    public Set<FileName> names() {
+        final Map<FileName, FileStamp> all = Maps.newHashMap();
+        collect(all);
+        return all.keySet();
+    }
+
+    public void put(FileName name, FileStamp stamp) {
+        stamps.put(name, stamp);
+        removed.remove(name);
     }
 
     public void remove(FileName name) {
-        files.remove(name);
-        modification.remove(name);
+        stamps.remove(name);
+        if(parent != null) {
+            removed.add(name);
+        }
+    }
+
+
+    private void collect(Map<FileName, FileStamp> all) {
+        if(parent != null) {
+            parent.collect(all);
+        }
+        for(FileName name : removed) {
+            all.remove(name);
+        }
+        all.putAll(stamps);
     }
-}
\ No newline at end of file
+}
+
+/**
+ * Modification time, size, and optionally a digest of the contents of a file.
+ */
+class FileStamp {
+    private static final long unknown = Long.MIN_VALUE;
+
+    public final long modification;
+    public final long size;
+    public final @Nullable HashCode digest;
+
+
+    private FileStamp(long modification, long size, @Nullable HashCode digest) {
+        this.modification = modification;
+        this.size = size;
+        this.digest = digest;
+    }
+
+
+    /**
+     * Creates a stamp for given resource. The contents of the resource are only digested when its modification time or
+     * size differs from the previous stamp.
+     */
+    public static FileStamp of(FileObject resource, @Nullable FileStamp previous, boolean digest) {
+        try {
+            final FileContent content = resource.getContent();
+            final long modification = content.getLastModifiedTime();
+            final long size = content.getSize();
+            if(previous != null && previous.modification == modification && previous.size == size
+                && (!digest || previous.digest != null)) {
+                return previous;
+            }
+            return new FileStamp(modification, size, digest ? digest(content) : null);
+        } catch(IOException e) {
+            // Unknown stamps are never the same as any other stamp, such that the file is always considered changed.
+            return new FileStamp(unknown, unknown, null);
+        }
+    }
+
+    private static HashCode digest(FileContent content) throws IOException {
+        final Hasher hasher = Hashing.sha256().newHasher();
+        try(InputStream stream = content.getInputStream()) {
+            final byte[] buffer = new byte[8192];
+            int read;
+            while((read = stream.read(buffer)) != -1) {
+                hasher.putBytes(buffer, 0, read);
+            }
+        }
+        return hasher.hash();
+    }
+
+
+    /**
+     * @return True if the file this stamp was created for has the same contents as when given stamp was created.
+     */
+    public boolean sameContent(FileStamp other) {
+        if(modification == unknown || other.modification == unknown) {
+            return false;
+        }
+        if(size != other.size) {
+            return false;
+        }
+        if(modification == other.modification) {
+            return true;
+        }
+        return digest != null && digest.equals(other.digest);
+    }
+}
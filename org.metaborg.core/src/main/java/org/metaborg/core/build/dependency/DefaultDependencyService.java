@@ -1,7 +1,9 @@
 package org.metaborg.core.build.dependency;
 
 import java.util.Collection;
-import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
 
 import org.metaborg.core.config.IProjectConfig;
 import org.metaborg.core.language.ILanguageComponent;
@@ -12,40 +14,90 @@ import org.metaborg.core.project.IProject;
 import org.metaborg.util.log.ILogger;
 import org.metaborg.util.log.LoggerUtils;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 
 /**
  * Default implementation of the {@link IDependencyService} interface.
+ *
+ * Resolved compile and source dependencies of projects are cached per project configuration object, and returned as
+ * immutable collections. The caches are invalidated when language components or implementations change, tracked by a
+ * generation counter such that results resolved concurrently with a change are never reused.
  */
 public final class DefaultDependencyService implements IDependencyService {
     private static final ILogger logger = LoggerUtils.logger(DefaultDependencyService.class);
 
+    private static final int maxCachedConfigs = 256;
+
+
+    private static class Resolved {
+        public final long generation;
+        public final Collection<ILanguageComponent> components;
+
+
+        public Resolved(long generation, Collection<ILanguageComponent> components) {
+            this.generation = generation;
+            this.components = components;
+        }
+    }
+
+
     private final ILanguageService languageService;
 
+    private final AtomicLong generation = new AtomicLong();
+    private final Cache<IProjectConfig, Resolved> compileDeps =
+        CacheBuilder.newBuilder().weakKeys().maximumSize(maxCachedConfigs).build();
+    private final Cache<IProjectConfig, Resolved> sourceDeps =
+        CacheBuilder.newBuilder().weakKeys().maximumSize(maxCachedConfigs).build();
+
 
     @Inject public DefaultDependencyService(ILanguageService languageService) {
         this.languageService = languageService;
+
+        languageService.componentChanges().subscribe(change -> invalidate());
+        languageService.implChanges().subscribe(change -> invalidate());
     }
 
 
     @Override public Collection<ILanguageComponent> compileDeps(IProject project) throws MissingDependencyException {
         final IProjectConfig config = project.config();
+        final long currentGeneration = generation.get();
+        final @Nullable Resolved resolved = compileDeps.getIfPresent(config);
+        if(resolved != null && resolved.generation == currentGeneration) {
+            return resolved.components;
+        }
+
+        final Collection<ILanguageComponent> components;
         if(config.compileDeps().isEmpty()) {
             logger.trace("No compile dependencies found for project '{}'."
                 + "Returning all active language components as compile dependencies instead.", project);
-            return ImmutableList.copyOf(LanguageUtils.allActiveComponents(languageService));
+            components = ImmutableList.copyOf(LanguageUtils.allActiveComponents(languageService));
+        } else {
+            components = getLanguages(config.compileDeps());
         }
-        return getLanguages(config.compileDeps());
+        compileDeps.put(config, new Resolved(currentGeneration, components));
+        return components;
     }
 
     @Override public Collection<ILanguageComponent> sourceDeps(IProject project) throws MissingDependencyException {
         final IProjectConfig config = project.config();
+        final long currentGeneration = generation.get();
+        final @Nullable Resolved resolved = sourceDeps.getIfPresent(config);
+        if(resolved != null && resolved.generation == currentGeneration) {
+            return resolved.components;
+        }
+
+        final Collection<ILanguageComponent> components;
         if(config.sourceDeps().isEmpty()) {
-            return Collections.emptyList();
+            components = ImmutableList.of();
+        } else {
+            components = getLanguages(config.sourceDeps());
         }
-        return getLanguages(config.sourceDeps());
+        sourceDeps.put(config, new Resolved(currentGeneration, components));
+        return components;
     }
 
     @Override public Collection<ILanguageComponent> sourceDeps(ILanguageComponent component)
@@ -75,16 +127,22 @@ public final class DefaultDependencyService implements IDependencyService {
         return new MissingDependencies(missingCompile, missingSource);
     }
 
+    private void invalidate() {
+        generation.incrementAndGet();
+        compileDeps.invalidateAll();
+        sourceDeps.invalidateAll();
+    }
+
     /**
      * Gets the language components with the specified identifiers.
      *
      * @param ids
      *            The language identifiers.
-     * @return A collection of language components.
+     * @return An immutable collection of language components.
      */
     private Collection<ILanguageComponent> getLanguages(Iterable<LanguageIdentifier> ids)
         throws MissingDependencyException {
-        final Collection<ILanguageComponent> components = Lists.newLinkedList();
+        final ImmutableList.Builder<ILanguageComponent> components = ImmutableList.builder();
         for(LanguageIdentifier id : ids) {
             final ILanguageComponent component = this.languageService.getComponent(id);
             if(component == null) {
@@ -92,6 +150,6 @@ public final class DefaultDependencyService implements IDependencyService {
             }
             components.add(component);
         }
-        return components;
+        return components.build();
     }
 }
@@ -1,6 +1,8 @@
 package org.metaborg.core.config;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.annotation.Nullable;
 
@@ -8,6 +10,8 @@ import org.apache.commons.configuration2.Configuration;
 import org.apache.commons.configuration2.HierarchicalConfiguration;
 import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.commons.configuration2.tree.ImmutableNode;
+import org.apache.commons.vfs2.FileContent;
+import org.apache.commons.vfs2.FileName;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
 import org.metaborg.core.messages.IMessage;
@@ -16,14 +20,46 @@ import org.metaborg.util.file.IFileAccess;
 import org.metaborg.util.log.ILogger;
 import org.metaborg.util.log.LoggerUtils;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 /**
  * Stores and retrieves configurations using the {@link Configuration} class.
+ *
+ * Retrieved configurations are cached per configuration file, and only read again when the modification time or size
+ * of the configuration file changes, or when the configuration is invalidated. Configurations written through this
+ * service invalidate the cached configuration. Cached configuration objects are shared, and must not be modified.
+ * Services that cache information derived from configurations can be notified of invalidations with
+ * {@link #addInvalidationListener(Runnable)}.
  */
 public abstract class AConfigService<TSubject, TConfig> {
     private static final ILogger logger = LoggerUtils.logger(AConfigService.class);
 
+    private static final int maxCachedConfigs = 1024;
+
+
+    private static class Entry<TConfig> {
+        public final long modified;
+        public final long size;
+        public final FileName rootFolder;
+        public final ConfigRequest<TConfig> request;
+
+
+        public Entry(long modified, long size, FileName rootFolder, ConfigRequest<TConfig> request) {
+            this.modified = modified;
+            this.size = size;
+            this.rootFolder = rootFolder;
+            this.request = request;
+        }
+    }
+
+
     protected final AConfigurationReaderWriter configReaderWriter;
 
+    private final Cache<FileName, Entry<TConfig>> cache =
+        CacheBuilder.newBuilder().maximumSize(maxCachedConfigs).build();
+    private final List<Runnable> invalidationListeners = new CopyOnWriteArrayList<>();
+
 
     /**
      * Initializes a new instance of the {@link AConfigService} class.
@@ -85,6 +121,85 @@ public abstract class AConfigService<TSubject, TConfig> {
      * @return The configuration, or <code>null</code> when no configuration could be retrieved.
      */
     public ConfigRequest<TConfig> getFromConfigFile(FileObject configFile, FileObject rootFolder) {
+        final FileName name = configFile.getName();
+        final long modified;
+        final long size;
+        try {
+            if(!configFile.exists()) {
+                cache.invalidate(name);
+                return new ConfigRequest<>();
+            }
+            final FileContent content = configFile.getContent();
+            modified = content.getLastModifiedTime();
+            size = content.getSize();
+        } catch(FileSystemException e) {
+            // Cannot validate cached configurations, read the configuration without caching.
+            cache.invalidate(name);
+            return readFromConfigFile(configFile, rootFolder);
+        }
+
+        final @Nullable Entry<TConfig> entry = cache.getIfPresent(name);
+        if(entry != null && entry.modified == modified && entry.size == size
+            && entry.rootFolder.equals(rootFolder.getName())) {
+            return entry.request;
+        }
+
+        final ConfigRequest<TConfig> request = readFromConfigFile(configFile, rootFolder);
+        cache.put(name, new Entry<>(modified, size, rootFolder.getName(), request));
+        return request;
+    }
+
+    /**
+     * Invalidates the cached configuration for a subject, such that it is read again on the next retrieval.
+     *
+     * @param rootDirectory
+     *            The root directory of the subject to invalidate the configuration for.
+     */
+    public void invalidate(FileObject rootDirectory) {
+        try {
+            invalidateConfigFile(getConfigFile(rootDirectory));
+        } catch(FileSystemException e) {
+            logger.debug("Cannot invalidate configuration at root directory {}", e, rootDirectory);
+        }
+    }
+
+    /**
+     * Invalidates the cached configuration of given configuration file, such that it is read again on the next
+     * retrieval.
+     *
+     * @param configFile
+     *            The configuration file to invalidate.
+     */
+    public void invalidateConfigFile(FileObject configFile) {
+        cache.invalidate(configFile.getName());
+        notifyInvalidationListeners();
+    }
+
+    /**
+     * Invalidates all cached configurations.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+        notifyInvalidationListeners();
+    }
+
+    /**
+     * Adds a listener that is called when a configuration is invalidated, or written through this service.
+     *
+     * @param listener
+     *            The listener to call.
+     */
+    public void addInvalidationListener(Runnable listener) {
+        invalidationListeners.add(listener);
+    }
+
+    private void notifyInvalidationListeners() {
+        for(Runnable listener : invalidationListeners) {
+            listener.run();
+        }
+    }
+
+    private ConfigRequest<TConfig> readFromConfigFile(FileObject configFile, FileObject rootFolder) {
         final HierarchicalConfiguration<ImmutableNode> configuration;
         try {
             configuration = readConfig(configFile, rootFolder);
@@ -146,7 +261,11 @@ public abstract class AConfigService<TSubject, TConfig> {
             access.write(configFile);
         }
         final HierarchicalConfiguration<ImmutableNode> configuration = fromConfig(config);
-        writeConfig(configFile, configuration, rootDirectory);
+        try {
+            writeConfig(configFile, configuration, rootDirectory);
+        } finally {
+            invalidateConfigFile(configFile);
+        }
     }
 
 
@@ -70,9 +70,7 @@ public class ConfigRequest<T> {
             return;
         }
 
-        for(IMessage error : errors) {
-            printer.print(error, false);
-        }
+        printer.print(errors, false);
         printer.printSummary();
     }
 }
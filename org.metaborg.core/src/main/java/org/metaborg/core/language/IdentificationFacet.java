@@ -25,4 +25,11 @@ public class IdentificationFacet implements IFacet {
     public boolean identify(FileObject file) {
         return identifier.test(file);
     }
+
+    /**
+     * @return The identification function.
+     */
+    public Predicate<FileObject> identifier() {
+        return identifier;
+    }
 }
@@ -1,6 +1,9 @@
 package org.metaborg.core.language;
 
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.annotation.Nullable;
 
@@ -18,7 +21,11 @@ import org.metaborg.util.log.ILogger;
 import org.metaborg.util.log.LoggerUtils;
 
 import com.google.common.base.Joiner;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.inject.Inject;
 
@@ -30,6 +37,13 @@ public class LanguageIdentifierService implements ILanguageIdentifierService {
     private final IProjectService projectService;
     private final IDependencyService dependencyService;
 
+    /**
+     * Identification results per extension, for lists of languages that only identify resources by their extension.
+     * Lists of languages that use other identification functions map to an empty optional.
+     */
+    private final Cache<List<ILanguageImpl>, Optional<ConcurrentMap<String, Optional<ILanguageImpl>>>> extensionCache =
+        CacheBuilder.newBuilder().maximumSize(64).build();
+
 
     @Inject public LanguageIdentifierService(ILanguageService languageService, IDialectIdentifier dialectIdentifier,
         IProjectService projectService, IDependencyService dependencyService) {
@@ -37,6 +51,9 @@ public class LanguageIdentifierService implements ILanguageIdentifierService {
         this.dialectIdentifier = dialectIdentifier;
         this.projectService = projectService;
         this.dependencyService = dependencyService;
+
+        languageService.componentChanges().subscribe(change -> extensionCache.invalidateAll());
+        languageService.implChanges().subscribe(change -> extensionCache.invalidateAll());
     }
 
 
@@ -134,7 +151,17 @@ public class LanguageIdentifierService implements ILanguageIdentifierService {
             // Ignore
         }
 
-        // Identify using identification facet.
+        // Identify using identification facet. When all languages identify resources by extension, the result only
+        // depends on the extension of the resource, and is cached.
+        final @Nullable ConcurrentMap<String, Optional<ILanguageImpl>> resultPerExtension = resultPerExtension(impls);
+        final String extension = resource.getName().getExtension();
+        if(resultPerExtension != null) {
+            final @Nullable Optional<ILanguageImpl> cached = resultPerExtension.get(extension);
+            if(cached != null) {
+                return cached.map(impl -> new IdentifiedResource(resource, null, impl)).orElse(null);
+            }
+        }
+
         final Set<ILanguage> identifiedLanguages = Sets.newLinkedHashSet();
         ILanguageImpl identifiedImpl = null;
         for(ILanguageImpl impl : impls) {
@@ -149,6 +176,10 @@ public class LanguageIdentifierService implements ILanguageIdentifierService {
                 + Joiner.on(", ").join(identifiedLanguages));
         }
 
+        if(resultPerExtension != null) {
+            resultPerExtension.put(extension, Optional.ofNullable(identifiedImpl));
+        }
+
         if(identifiedImpl == null) {
             return null;
         }
@@ -156,6 +187,24 @@ public class LanguageIdentifierService implements ILanguageIdentifierService {
         return new IdentifiedResource(resource, null, identifiedImpl);
     }
 
+    private @Nullable ConcurrentMap<String, Optional<ILanguageImpl>>
+        resultPerExtension(Iterable<? extends ILanguageImpl> impls) {
+        final List<ILanguageImpl> key = ImmutableList.copyOf(impls);
+        Optional<ConcurrentMap<String, Optional<ILanguageImpl>>> results = extensionCache.getIfPresent(key);
+        if(results == null) {
+            results = Optional.of(Maps.newConcurrentMap());
+            for(ILanguageImpl impl : key) {
+                for(IdentificationFacet facet : impl.facets(IdentificationFacet.class)) {
+                    if(!(facet.identifier() instanceof ResourceExtensionsIdentifier)) {
+                        results = Optional.empty();
+                    }
+                }
+            }
+            extensionCache.put(key, results);
+        }
+        return results.orElse(null);
+    }
+
 
     @Override public boolean available(ILanguageImpl impl) {
         final Iterable<IdentificationFacet> facets = impl.facets(IdentificationFacet.class);
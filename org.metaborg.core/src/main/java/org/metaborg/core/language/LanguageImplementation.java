@@ -4,13 +4,16 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
+import javax.annotation.Nullable;
+
 import org.apache.commons.vfs2.FileObject;
 import org.metaborg.core.MetaborgRuntimeException;
 import org.metaborg.core.config.ILanguageComponentConfig;
 import org.metaborg.core.config.ILanguageImplConfig;
 import org.metaborg.core.config.LanguageImplConfig;
 
-import com.google.common.collect.Iterables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
@@ -20,6 +23,53 @@ public class LanguageImplementation implements ILanguageImpl, ILanguageImplInter
 
     private final Set<ILanguageComponent> components = Sets.newHashSet();
 
+    private volatile @Nullable Index index;
+
+
+    /**
+     * Immutable index of the facets, configuration, and sequence identifier of the components of an implementation.
+     * Built when first needed, and rebuilt only after components are added or removed, such that facet lookups do not
+     * walk components or allocate.
+     */
+    private static class Index {
+        public final int sequenceId;
+        public final ILanguageImplConfig config;
+        public final ImmutableList<IFacet> facets;
+        public final ImmutableList<FacetContribution<IFacet>> facetContributions;
+        public final ImmutableListMultimap<Class<? extends IFacet>, IFacet> facetsPerType;
+        public final ImmutableListMultimap<Class<? extends IFacet>, FacetContribution<IFacet>>
+            facetContributionsPerType;
+
+
+        public Index(Iterable<ILanguageComponent> components) {
+            int sequenceId = Integer.MIN_VALUE;
+            final Collection<ILanguageComponentConfig> configs = Lists.newArrayList();
+            final ImmutableList.Builder<IFacet> facets = ImmutableList.builder();
+            final ImmutableList.Builder<FacetContribution<IFacet>> contributions = ImmutableList.builder();
+            final ImmutableListMultimap.Builder<Class<? extends IFacet>, IFacet> facetsPerType =
+                ImmutableListMultimap.builder();
+            final ImmutableListMultimap.Builder<Class<? extends IFacet>, FacetContribution<IFacet>>
+                contributionsPerType = ImmutableListMultimap.builder();
+            for(ILanguageComponent component : components) {
+                sequenceId = Math.max(component.sequenceId(), sequenceId);
+                configs.add(component.config());
+                for(FacetContribution<IFacet> contribution : component.facetContributions()) {
+                    final Class<? extends IFacet> type = contribution.facet.getClass();
+                    facets.add(contribution.facet);
+                    contributions.add(contribution);
+                    facetsPerType.put(type, contribution.facet);
+                    contributionsPerType.put(type, contribution);
+                }
+            }
+            this.sequenceId = sequenceId;
+            this.config = new LanguageImplConfig(configs);
+            this.facets = facets.build();
+            this.facetContributions = contributions.build();
+            this.facetsPerType = facetsPerType.build();
+            this.facetContributionsPerType = contributionsPerType.build();
+        }
+    }
+
 
     public LanguageImplementation(LanguageIdentifier id, ILanguageInternal belongsTo) {
         this.id = id;
@@ -32,11 +82,7 @@ public class LanguageImplementation implements ILanguageImpl, ILanguageImplInter
     }
 
     @Override public int sequenceId() {
-        int max = Integer.MIN_VALUE;
-        for(ILanguageComponent component : components) {
-            max = Math.max(component.sequenceId(), max);
-        }
-        return max;
+        return index().sequenceId;
     }
 
     @Override public List<FileObject> locations() {
@@ -61,88 +107,83 @@ public class LanguageImplementation implements ILanguageImpl, ILanguageImplInter
 
 
     @Override public ILanguageImplConfig config() {
-        final Collection<ILanguageComponentConfig> configs = Lists.newArrayListWithCapacity(components.size());
-        for(ILanguageComponent component : components) {
-            configs.add(component.config());
-        }
-        return new LanguageImplConfig(configs);
+        return index().config;
     }
 
 
     @Override public boolean hasFacet(Class<? extends IFacet> type) {
-        for(ILanguageComponent component : components) {
-            if(component.hasFacet(type)) {
-                return true;
-            }
-        }
-        return false;
+        return index().facetsPerType.containsKey(type);
     }
 
-    @Override public <T extends IFacet> Iterable<T> facets(Class<T> type) {
-        final Collection<T> facets = Lists.newLinkedList();
-        for(ILanguageComponent component : components) {
-            Iterables.addAll(facets, component.facets(type));
-        }
-        return facets;
+    @SuppressWarnings("unchecked") @Override public <T extends IFacet> Iterable<T> facets(Class<T> type) {
+        return (Iterable<T>) index().facetsPerType.get(type);
     }
 
-    @Override public <T extends IFacet> Iterable<FacetContribution<T>> facetContributions(Class<T> type) {
-        final Collection<FacetContribution<T>> contributions = Lists.newLinkedList();
-        for(ILanguageComponent component : components) {
-            Iterables.addAll(contributions, component.facetContributions(type));
-        }
-        return contributions;
+    @SuppressWarnings("unchecked") @Override public <T extends IFacet> Iterable<FacetContribution<T>>
+        facetContributions(Class<T> type) {
+        final Iterable<?> contributions = index().facetContributionsPerType.get(type);
+        return (Iterable<FacetContribution<T>>) contributions;
     }
 
-    @Override public <T extends IFacet> T facet(Class<T> type) {
-        // GTODO: code duplication with LanguageComponent, use default interface implementation in Java 8.
-        final Iterable<T> facets = facets(type);
-        final int size = Iterables.size(facets);
+    @SuppressWarnings("unchecked") @Override public <T extends IFacet> T facet(Class<T> type) {
+        final List<IFacet> facets = index().facetsPerType.get(type);
+        final int size = facets.size();
         if(size == 0) {
             return null;
         } else if(size > 1) {
             throw new MetaborgRuntimeException(
                 "Multiple facets of type " + type + " found, while only a single facet is supported");
         }
-        return Iterables.get(facets, 0);
+        return (T) facets.get(0);
     }
 
-    @Override public <T extends IFacet> FacetContribution<T> facetContribution(Class<T> type) {
-        // GTODO: code duplication with LanguageComponent, use default interface implementation in Java 8.
-        final Iterable<FacetContribution<T>> facetContributions = facetContributions(type);
-        final int size = Iterables.size(facetContributions);
+    @SuppressWarnings("unchecked") @Override public <T extends IFacet> FacetContribution<T>
+        facetContribution(Class<T> type) {
+        final List<FacetContribution<IFacet>> facetContributions = index().facetContributionsPerType.get(type);
+        final int size = facetContributions.size();
         if(size == 0) {
             return null;
         } else if(size > 1) {
             throw new MetaborgRuntimeException(
                 "Multiple facets of type " + type + " found, while only a single facet is supported");
         }
-        return Iterables.get(facetContributions, 0);
+        final Object facetContribution = facetContributions.get(0);
+        return (FacetContribution<T>) facetContribution;
     }
 
     @Override public Iterable<IFacet> facets() {
-        final Collection<IFacet> facets = Lists.newLinkedList();
-        for(ILanguageComponent component : components) {
-            Iterables.addAll(facets, component.facets());
-        }
-        return facets;
+        return index().facets;
     }
 
     @Override public Iterable<FacetContribution<IFacet>> facetContributions() {
-        final Collection<FacetContribution<IFacet>> contributions = Lists.newLinkedList();
-        for(ILanguageComponent component : components) {
-            Iterables.addAll(contributions, component.facetContributions());
-        }
-        return contributions;
+        return index().facetContributions;
     }
 
 
-    @Override public boolean addComponent(ILanguageComponent component) {
-        return components.add(component);
+    @Override public synchronized boolean addComponent(ILanguageComponent component) {
+        final boolean added = components.add(component);
+        index = null;
+        return added;
+    }
+
+    @Override public synchronized boolean removeComponent(ILanguageComponent component) {
+        final boolean removed = components.remove(component);
+        index = null;
+        return removed;
     }
 
-    @Override public boolean removeComponent(ILanguageComponent component) {
-        return components.remove(component);
+    private Index index() {
+        @Nullable Index index = this.index;
+        if(index == null) {
+            synchronized(this) {
+                index = this.index;
+                if(index == null) {
+                    index = new Index(components);
+                    this.index = index;
+                }
+            }
+        }
+        return index;
     }
 
 
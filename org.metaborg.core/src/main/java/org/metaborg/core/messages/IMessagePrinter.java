@@ -20,6 +20,22 @@ public interface IMessagePrinter {
      */
     void print(IMessage message, boolean pardoned);
 
+    /**
+     * Prints given messages. Implementations may group messages by resource, to retrieve the source text of each
+     * resource only once.
+     * 
+     * @param messages
+     *            Messages to print.
+     * @param pardoned
+     *            If the (error or warning) messages are pardoned, i.e. the messages are acceptable even if they
+     *            indicate a problem.
+     */
+    default void print(Iterable<IMessage> messages, boolean pardoned) {
+        for(IMessage message : messages) {
+            print(message, pardoned);
+        }
+    }
+
     /**
      * Prints given message and exception, located at a resource. Used if the source location is not available.
      * 
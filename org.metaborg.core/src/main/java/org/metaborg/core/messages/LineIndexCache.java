@@ -0,0 +1,68 @@
+package org.metaborg.core.messages;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import org.apache.commons.vfs2.FileName;
+import org.apache.commons.vfs2.FileObject;
+import org.metaborg.core.source.ISourceTextService;
+import org.metaborg.core.source.LineIndex;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.MultimapBuilder;
+
+/**
+ * Caches line indexes of the source texts of recently printed resources. Indexes are validated against the current
+ * text from the source text service, which only re-reads a resource when its modification stamp changes.
+ */
+class LineIndexCache {
+    private static final int maxResources = 32;
+
+    private final ISourceTextService sourceTextService;
+    private final Cache<FileName, LineIndex> indexes = CacheBuilder.newBuilder().maximumSize(maxResources).build();
+
+
+    public LineIndexCache(ISourceTextService sourceTextService) {
+        this.sourceTextService = sourceTextService;
+    }
+
+
+    /**
+     * @return Line index of the source text of given resource, or null if the text could not be read.
+     */
+    public @Nullable LineIndex get(FileObject resource) {
+        final String text;
+        try {
+            text = sourceTextService.text(resource);
+        } catch(IOException e) {
+            return null;
+        }
+        final FileName name = resource.getName();
+        final @Nullable LineIndex cached = indexes.getIfPresent(name);
+        if(cached != null && cached.isIndexOf(text)) {
+            return cached;
+        }
+        final LineIndex index = new LineIndex(text);
+        indexes.put(name, index);
+        return index;
+    }
+
+
+    /**
+     * Groups given messages by the name of their source resource, in order of first occurrence. Messages without a
+     * source are grouped under the null key.
+     */
+    public static Map<FileName, Collection<IMessage>> groupBySource(Iterable<IMessage> messages) {
+        final ListMultimap<FileName, IMessage> groups = MultimapBuilder.linkedHashKeys().arrayListValues().build();
+        for(IMessage message : messages) {
+            final @Nullable FileObject source = message.source();
+            groups.put(source != null ? source.getName() : null, message);
+        }
+        return groups.asMap();
+    }
+}
@@ -1,10 +1,10 @@
 package org.metaborg.core.messages;
 
-import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.Collection;
 
 import javax.annotation.Nullable;
 
@@ -13,6 +13,7 @@ import org.metaborg.core.project.IProject;
 import org.metaborg.core.source.AffectedSourceHelper;
 import org.metaborg.core.source.ISourceRegion;
 import org.metaborg.core.source.ISourceTextService;
+import org.metaborg.core.source.LineIndex;
 import org.metaborg.util.log.ILogger;
 import org.metaborg.util.log.Level;
 import org.metaborg.util.log.LoggerUtils;
@@ -21,7 +22,7 @@ import org.metaborg.util.log.LoggerUtils;
  * Message printer implementation that prints detailed messages to a stream.
  */
 public class StreamMessagePrinter implements IMessagePrinter {
-    private final ISourceTextService sourceTextService;
+    private final LineIndexCache lineIndexes;
     private final PrintStream infoStream;
     private final PrintStream warnStream;
     private final PrintStream errorStream;
@@ -39,7 +40,7 @@ public class StreamMessagePrinter implements IMessagePrinter {
 
     public StreamMessagePrinter(ISourceTextService sourceTextService, boolean printHighlight, boolean printExceptions,
         OutputStream infoStream, OutputStream warnStream, OutputStream errorStream) {
-        this.sourceTextService = sourceTextService;
+        this.lineIndexes = new LineIndexCache(sourceTextService);
         this.infoStream = new PrintStream(infoStream);
         this.warnStream = new PrintStream(warnStream);
         this.errorStream = new PrintStream(errorStream);
@@ -55,6 +56,23 @@ public class StreamMessagePrinter implements IMessagePrinter {
 
 
     @Override public void print(IMessage message, boolean pardoned) {
+        final FileObject source = message.source();
+        final @Nullable LineIndex lineIndex =
+            printHighlight && source != null && message.region() != null ? lineIndexes.get(source) : null;
+        print(message, pardoned, lineIndex);
+    }
+
+    @Override public void print(Iterable<IMessage> messages, boolean pardoned) {
+        for(Collection<IMessage> group : LineIndexCache.groupBySource(messages).values()) {
+            final FileObject source = group.iterator().next().source();
+            final @Nullable LineIndex lineIndex = printHighlight && source != null ? lineIndexes.get(source) : null;
+            for(IMessage message : group) {
+                print(message, pardoned, lineIndex);
+            }
+        }
+    }
+
+    private void print(IMessage message, boolean pardoned, @Nullable LineIndex lineIndex) {
         final StringBuilder sb = new StringBuilder();
 
         final MessageSeverity severity = message.severity();
@@ -74,15 +92,10 @@ public class StreamMessagePrinter implements IMessagePrinter {
             sb.append('\n');
         }
 
-        if(printHighlight && source != null && region != null) {
-            try {
-                final String sourceText = sourceTextService.text(source);
-                final String affected =
-                    AffectedSourceHelper.affectedSourceText(message.region(), sourceText, "    ");
-                if(affected != null) {
-                    sb.append(affected);
-                }
-            } catch(IOException e) {
+        if(lineIndex != null && region != null) {
+            final String affected = AffectedSourceHelper.affectedSourceText(region, lineIndex, "    ");
+            if(affected != null) {
+                sb.append(affected);
             }
         }
 
@@ -1,8 +1,8 @@
 package org.metaborg.core.messages;
 
-import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.util.Collection;
 
 import javax.annotation.Nullable;
 
@@ -13,6 +13,7 @@ import org.metaborg.core.project.IProjectService;
 import org.metaborg.core.source.AffectedSourceHelper;
 import org.metaborg.core.source.ISourceRegion;
 import org.metaborg.core.source.ISourceTextService;
+import org.metaborg.core.source.LineIndex;
 
 /**
  * Prints note, warning, and error messages similar to large compilers such as GCC or Clang. That is, the message comes
@@ -23,7 +24,7 @@ public class WithLocationStreamMessagePrinter implements IMessagePrinter {
     /**
      * To pretty-print the affected source code of a message.
      */
-    private final ISourceTextService sourceTextService;
+    private final LineIndexCache lineIndexes;
     /**
      * To get the relative filename of source file.
      */
@@ -33,58 +34,91 @@ public class WithLocationStreamMessagePrinter implements IMessagePrinter {
 
     public WithLocationStreamMessagePrinter(ISourceTextService sourceTextService, IProjectService projectService,
         OutputStream outputStream) {
-        this.sourceTextService = sourceTextService;
+        this.lineIndexes = new LineIndexCache(sourceTextService);
         this.projectService = projectService;
         this.outputStream = new PrintStream(outputStream);
     }
 
     @Override public void print(IMessage message, boolean pardoned) {
-        print(message.message(), pardoned, message.source(), message.severity(), message.region());
+        if(pardoned) {
+            return;
+        }
+        final FileObject source = message.source();
+        final @Nullable LineIndex lineIndex =
+            source != null && message.region() != null ? lineIndexes.get(source) : null;
+        print(message.message(), sourceFilename(source), message.severity(), message.region(), lineIndex);
+        outputStream.flush();
+    }
+
+    @Override public void print(Iterable<IMessage> messages, boolean pardoned) {
+        if(pardoned) {
+            return;
+        }
+        for(Collection<IMessage> group : LineIndexCache.groupBySource(messages).values()) {
+            final FileObject source = group.iterator().next().source();
+            final @Nullable String sourceFilename = sourceFilename(source);
+            final @Nullable LineIndex lineIndex = source != null ? lineIndexes.get(source) : null;
+            for(IMessage message : group) {
+                print(message.message(), sourceFilename, message.severity(), message.region(), lineIndex);
+            }
+        }
+        outputStream.flush();
     }
 
     @Override public void print(@Nullable FileObject resource, String message, Throwable e, boolean pardoned) {
-        print(message, pardoned, resource, null, null);
+        if(pardoned) {
+            return;
+        }
+        print(message, sourceFilename(resource), null, null, null);
+        outputStream.flush();
     }
 
     @Override public void print(IProject project, String message, Throwable e, boolean pardoned) {
-        print(message, pardoned, null, null, null);
+        if(pardoned) {
+            return;
+        }
+        print(message, null, null, null, null);
+        outputStream.flush();
     }
 
     @Override public void printSummary() {
     }
 
-    private void print(String message, boolean pardoned, @Nullable FileObject sourceFile,
-        @Nullable MessageSeverity severity, @Nullable ISourceRegion sourceRegion) {
-        if(pardoned) {
-            return;
+    private @Nullable String sourceFilename(@Nullable FileObject sourceFile) {
+        if(sourceFile == null) {
+            return null;
+        }
+        try {
+            // source file name relative to project location (so that we don't output long absolute paths)
+            final IProject project = projectService.get(sourceFile);
+            String relativeSourceFilename = sourceFile.getName().getBaseName();
+            if(project != null // projectService.get() is @Nullable
+                && project.location().getName() != sourceFile.getName() // don't "relativize" if project == source
+            ) {
+                relativeSourceFilename = project.location().getName().getRelativeName(sourceFile.getName());
+            }
+            return relativeSourceFilename;
+        } catch(FileSystemException ignored) {
+            return null;
         }
+    }
 
+    private void print(String message, @Nullable String sourceFilename, @Nullable MessageSeverity severity,
+        @Nullable ISourceRegion sourceRegion, @Nullable LineIndex lineIndex) {
         final StringBuilder sb = new StringBuilder();
         // if available, print filename, line number, and column
-        if(sourceFile != null) {
-            try {
-                // source file name relative to project location (so that we don't output long absolute paths)
-                final IProject project = projectService.get(sourceFile);
-                String relativeSourceFilename = sourceFile.getName().getBaseName();
-                if(project != null // projectService.get() is @Nullable
-                    && project.location().getName() != sourceFile.getName() // don't "relativize" if project == source
-                ) {
-                    relativeSourceFilename = project.location().getName().getRelativeName(sourceFile.getName());
-                }
-
-                sb.append(relativeSourceFilename);
-                sb.append(':');
+        if(sourceFilename != null) {
+            sb.append(sourceFilename);
+            sb.append(':');
 
-                if(sourceRegion != null && sourceRegion.startRow() != -1 && sourceRegion.startColumn() != -1) {
-                    sb.append(sourceRegion.startRow() + 1); // startRow() is in [0, #lines)
-                    sb.append(':');
-                    sb.append(sourceRegion.startColumn() + 1);
-                    sb.append(':');
-                }
-
-                sb.append(' ');
-            } catch(FileSystemException ignored) {
+            if(sourceRegion != null && sourceRegion.startRow() != -1 && sourceRegion.startColumn() != -1) {
+                sb.append(sourceRegion.startRow() + 1); // startRow() is in [0, #lines)
+                sb.append(':');
+                sb.append(sourceRegion.startColumn() + 1);
+                sb.append(':');
             }
+
+            sb.append(' ');
         }
 
         // print severity and message
@@ -96,19 +130,14 @@ public class WithLocationStreamMessagePrinter implements IMessagePrinter {
         sb.append('\n');
 
         // if available, pretty-print source code
-        if(sourceFile != null && sourceRegion != null) {
-            try {
-                final String affectedSource =
-                    AffectedSourceHelper.affectedSourceText(sourceRegion, sourceTextService.text(sourceFile), " ");
-                if(affectedSource != null) { // affectedSourceText() is @Nullable
-                    sb.append(affectedSource);
-                }
-            } catch(IOException ignored) {
+        if(lineIndex != null && sourceRegion != null) {
+            final String affectedSource = AffectedSourceHelper.affectedSourceText(sourceRegion, lineIndex, " ");
+            if(affectedSource != null) { // affectedSourceText() is @Nullable
+                sb.append(affectedSource);
             }
         }
 
         outputStream.print(sb.toString());
-        outputStream.flush();
     }
 
 }
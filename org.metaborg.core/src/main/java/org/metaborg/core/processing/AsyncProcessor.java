@@ -0,0 +1,547 @@
+package org.metaborg.core.processing;
+
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import org.apache.commons.vfs2.FileName;
+import org.apache.commons.vfs2.FileObject;
+import org.metaborg.core.analysis.IAnalyzeUnit;
+import org.metaborg.core.analysis.IAnalyzeUnitUpdate;
+import org.metaborg.core.build.BuildInput;
+import org.metaborg.core.build.BuildOrder;
+import org.metaborg.core.build.CleanInput;
+import org.metaborg.core.build.IBuildOutput;
+import org.metaborg.core.build.IBuilder;
+import org.metaborg.core.language.ILanguageImpl;
+import org.metaborg.core.language.LanguageComponentChange;
+import org.metaborg.core.language.LanguageImplChange;
+import org.metaborg.core.language.dialect.IDialectProcessor;
+import org.metaborg.core.resource.ResourceChange;
+import org.metaborg.core.syntax.IParseUnit;
+import org.metaborg.core.transform.ITransformUnit;
+import org.metaborg.util.log.ILogger;
+import org.metaborg.util.log.LoggerUtils;
+import org.metaborg.util.task.ICancel;
+import org.metaborg.util.task.IProgress;
+import org.metaborg.util.task.NullProgress;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import com.google.inject.Inject;
+
+/**
+ * Processor implementation that executes tasks asynchronously on a pool of worker threads.
+ * <ul>
+ * <li>Scheduled tasks are executed in order of their {@link TaskPriority}, and in scheduling order within the same
+ * priority.</li>
+ * <li>Scheduling an {@link TaskPriority#Interactive} task while all workers are busy preempts a running
+ * {@link TaskPriority#Background} build or clean. The preempted task is cancelled cooperatively, and scheduled again to
+ * run after all higher priority tasks.</li>
+ * <li>Scheduling a build for a project that already has a build queued merges the new build into the queued build. The
+ * source changes of both builds are combined, other settings are taken from the new build, and both tasks complete with
+ * the result of the merged build.</li>
+ * <li>Cancelling a queued task removes it from the queue. If other builds were merged into it, the first of those takes
+ * its place in the queue and runs the merged work of the remaining builds. Cancelling a running task requests
+ * cancellation through the {@link ICancel} passed to the builder once all tasks merged into it are cancelled, and
+ * {@link ITask#cancel(int)} interrupts the worker after the timeout.</li>
+ * <li>A task whose work throws an unchecked exception or error is neither completed nor cancelled, and
+ * {@link ITask#block()} rethrows the failure.</li>
+ * </ul>
+ * Builds are executed by a single worker thread by default, such that builds of different projects do not run
+ * concurrently.
+ */
+public class AsyncProcessor<P extends IParseUnit, A extends IAnalyzeUnit, AU extends IAnalyzeUnitUpdate, T extends ITransformUnit<?>>
+    implements IProcessor<P, A, AU, T>, AutoCloseable {
+    private static final ILogger logger = LoggerUtils.logger(AsyncProcessor.class);
+
+    private final IDialectProcessor dialectProcessor;
+    private final IBuilder<P, A, AU, T> builder;
+    private final ILanguageChangeProcessor languageChangeProcessor;
+
+    private final int workerCount;
+    private final List<Thread> workers = Lists.newArrayList();
+    private final ScheduledExecutorService forceCancelTimer;
+
+    private final PriorityQueue<AsyncTask<?>> queue = new PriorityQueue<>();
+    private final List<AsyncTask<?>> running = Lists.newArrayList();
+    private long nextSequence = 0;
+    private volatile boolean closed = false;
+
+
+    @Inject public AsyncProcessor(IDialectProcessor dialectProcessor, IBuilder<P, A, AU, T> builder,
+        ILanguageChangeProcessor languageChangeProcessor) {
+        this(dialectProcessor, builder, languageChangeProcessor, 1);
+    }
+
+    public AsyncProcessor(IDialectProcessor dialectProcessor, IBuilder<P, A, AU, T> builder,
+        ILanguageChangeProcessor languageChangeProcessor, int workerCount) {
+        this.dialectProcessor = dialectProcessor;
+        this.builder = builder;
+        this.languageChangeProcessor = languageChangeProcessor;
+        this.workerCount = Math.max(1, workerCount);
+
+        this.forceCancelTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "Processor cancellation timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for(int i = 0; i < this.workerCount; ++i) {
+            final Thread worker = new Thread(this::work, "Processor worker " + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    @Override public void close() {
+        synchronized(this) {
+            if(closed) {
+                return;
+            }
+            closed = true;
+            for(AsyncTask<?> task : queue) {
+                task.finish(null, null, true);
+            }
+            queue.clear();
+            // Running tasks observe the closed flag through their cancellation token.
+            notifyAll();
+        }
+        forceCancelTimer.shutdownNow();
+    }
+
+
+    @Override public ITask<? extends IBuildOutput<P, A, AU, T>> build(BuildInput input,
+        @Nullable IProgress progressReporter, @Nullable ICancel cancellationToken) {
+        return build(input, TaskPriority.Normal, progressReporter, cancellationToken);
+    }
+
+    /**
+     * Creates a build task with given priority.
+     *
+     * @see IProcessorRunner#build(BuildInput, IProgress, ICancel)
+     */
+    public ITask<? extends IBuildOutput<P, A, AU, T>> build(BuildInput input, TaskPriority priority,
+        @Nullable IProgress progressReporter, @Nullable ICancel cancellationToken) {
+        final FileName project = input.project.location().getName();
+        return new AsyncTask<IBuildOutput<P, A, AU, T>>(new BuildWork(input, progressReporter), priority, true, project,
+            cancellationToken);
+    }
+
+    @Override public ITask<?> clean(CleanInput input, @Nullable IProgress progressReporter,
+        @Nullable ICancel cancellationToken) {
+        return clean(input, TaskPriority.Normal, progressReporter, cancellationToken);
+    }
+
+    /**
+     * Creates a clean task with given priority.
+     *
+     * @see IProcessorRunner#clean(CleanInput, IProgress, ICancel)
+     */
+    public ITask<?> clean(CleanInput input, TaskPriority priority, @Nullable IProgress progressReporter,
+        @Nullable ICancel cancellationToken) {
+        final IProgress progress = progressReporter != null ? progressReporter : new NullProgress();
+        return new AsyncTask<Object>(cancel -> {
+            builder.clean(input, progress, cancel);
+            return null;
+        }, priority, true, null, cancellationToken);
+    }
+
+
+    @Override public ITask<?> updateDialects(FileObject location, Iterable<ResourceChange> changes) {
+        return new AsyncTask<Object>(cancel -> {
+            dialectProcessor.update(location, changes);
+            return null;
+        }, TaskPriority.Normal, false, null, null);
+    }
+
+
+    @Override public ITask<?> languageChange(LanguageComponentChange change) {
+        return new AsyncTask<Object>(cancel -> {
+            languageChangeProcessor.processComponentChange(change);
+            return null;
+        }, TaskPriority.Normal, false, null, null);
+    }
+
+    @Override public ITask<?> languageChange(LanguageImplChange change) {
+        return new AsyncTask<Object>(cancel -> {
+            languageChangeProcessor.processImplChange(change);
+            return null;
+        }, TaskPriority.Normal, false, null, null);
+    }
+
+
+    private void work() {
+        while(true) {
+            final AsyncTask<?> task;
+            synchronized(this) {
+                try {
+                    while(queue.isEmpty() && !closed) {
+                        wait();
+                    }
+                } catch(InterruptedException e) {
+                    return;
+                }
+                if(closed) {
+                    return;
+                }
+                task = queue.poll();
+                task.state = State.Running;
+                task.thread = Thread.currentThread();
+                running.add(task);
+            }
+            task.run();
+        }
+    }
+
+    private void enqueue(AsyncTask<?> task) {
+        task.state = State.Queued;
+        queue.add(task);
+        if(task.priority == TaskPriority.Interactive && running.size() >= workerCount) {
+            for(AsyncTask<?> runningTask : running) {
+                if(runningTask.preemptible && runningTask.priority == TaskPriority.Background
+                    && !runningTask.preempted) {
+                    logger.debug("Preempting {} for {}", runningTask, task);
+                    runningTask.preempted = true;
+                    break;
+                }
+            }
+        }
+        notifyAll();
+    }
+
+
+    private enum State {
+        Created, Queued, Coalesced, Running, Completed, Cancelled, Failed
+    }
+
+    @FunctionalInterface private interface Work<R> {
+        R run(ICancel cancel) throws InterruptedException;
+    }
+
+    private class BuildWork implements Work<IBuildOutput<P, A, AU, T>> {
+        private final BuildInput input;
+        private final @Nullable IProgress progress;
+
+
+        public BuildWork(BuildInput input, @Nullable IProgress progress) {
+            this.input = input;
+            this.progress = progress;
+        }
+
+
+        @Override public IBuildOutput<P, A, AU, T> run(ICancel cancel) throws InterruptedException {
+            return builder.build(input, progress != null ? progress : new NullProgress(), cancel);
+        }
+
+        /**
+         * Returns a build that merges given later build into this build.
+         */
+        public BuildWork merge(BuildWork later) {
+            final BuildInput earlier = this.input;
+            final BuildInput latest = later.input;
+            final Iterable<ResourceChange> sourceChanges =
+                Lists.newArrayList(Iterables.concat(earlier.sourceChanges, latest.sourceChanges));
+            final Multimap<ILanguageImpl, FileObject> includePaths = HashMultimap.create(earlier.includePaths);
+            includePaths.putAll(latest.includePaths);
+            final BuildOrder buildOrder = new BuildOrder(
+                Sets.newLinkedHashSet(Iterables.concat(earlier.buildOrder.languages(), latest.buildOrder.languages())));
+            return new BuildWork(latest.withSources(sourceChanges, includePaths, buildOrder), later.progress);
+        }
+    }
+
+    private class AsyncTask<R> implements ITask<R>, Comparable<AsyncTask<?>> {
+        private final Work<R> ownWork;
+        private final boolean preemptible;
+        private final @Nullable FileName project;
+        private final @Nullable ICancel externalCancel;
+        private final ICancel cancel = new TaskCancel();
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        // Guarded by the processor.
+        private Work<R> work;
+        private TaskPriority priority;
+        private long sequence;
+        private @Nullable Thread thread;
+        private @Nullable AsyncTask<R> mergedInto;
+        // Modified while holding the processor lock, read by the cancellation token of the running task.
+        private final List<AsyncTask<R>> merged = new CopyOnWriteArrayList<>();
+
+        private volatile State state = State.Created;
+        private volatile boolean cancelled = false;
+        private volatile boolean preempted = false;
+        private volatile @Nullable R result;
+        private volatile @Nullable Throwable failure;
+
+
+        public AsyncTask(Work<R> work, TaskPriority priority, boolean preemptible, @Nullable FileName project,
+            @Nullable ICancel externalCancel) {
+            this.ownWork = work;
+            this.work = work;
+            this.priority = priority;
+            this.preemptible = preemptible;
+            this.project = project;
+            this.externalCancel = externalCancel;
+        }
+
+
+        @Override public ITask<R> schedule() {
+            synchronized(AsyncProcessor.this) {
+                if(state != State.Created) {
+                    return this;
+                }
+                if(closed) {
+                    finish(null, null, true);
+                    return this;
+                }
+                sequence = nextSequence++;
+                if(!coalesce()) {
+                    enqueue(this);
+                }
+            }
+            return this;
+        }
+
+        private boolean coalesce() {
+            if(project == null) {
+                return false;
+            }
+            for(AsyncTask<?> queued : queue) {
+                if(project.equals(queued.project)) {
+                    @SuppressWarnings("unchecked") final AsyncTask<R> target = (AsyncTask<R>) queued;
+                    logger.debug("Merging build of {} into queued build", project);
+                    target.work = mergeWork(target.work, ownWork);
+                    queue.remove(target);
+                    target.priority = target.priority.max(priority);
+                    enqueue(target);
+                    target.merged.add(this);
+                    mergedInto = target;
+                    state = State.Coalesced;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Replaces this cancelled task in the queue by the first task merged into it, which takes over the remaining
+         * merged tasks. Must be called while holding the processor lock.
+         */
+        private void promoteMerged() {
+            if(merged.isEmpty()) {
+                return;
+            }
+            final AsyncTask<R> promoted = merged.get(0);
+            logger.debug("Queued {} was cancelled, running merged {} instead", this, promoted);
+            Work<R> promotedWork = promoted.ownWork;
+            for(AsyncTask<R> task : merged.subList(1, merged.size())) {
+                promotedWork = mergeWork(promotedWork, task.ownWork);
+                promoted.priority = promoted.priority.max(task.priority);
+                promoted.merged.add(task);
+                task.mergedInto = promoted;
+            }
+            merged.clear();
+            promoted.work = promotedWork;
+            promoted.mergedInto = null;
+            promoted.sequence = sequence;
+            enqueue(promoted);
+        }
+
+        @SuppressWarnings("unchecked") private Work<R> mergeWork(Work<R> earlier, Work<R> later) {
+            return (Work<R>) ((BuildWork) earlier).merge((BuildWork) later);
+        }
+
+        private void run() {
+            R value = null;
+            Throwable failure = null;
+            boolean interrupted = false;
+            try {
+                value = work.run(cancel);
+            } catch(InterruptedException e) {
+                interrupted = true;
+            } catch(RuntimeException | Error e) {
+                logger.error("Task {} failed unexpectedly", e, this);
+                failure = e;
+            }
+
+            synchronized(AsyncProcessor.this) {
+                running.remove(this);
+                thread = null;
+                // Clear interrupts from forced cancellation, the task is not running any more so no new interrupts
+                // can be sent to this worker.
+                Thread.interrupted();
+                if(interrupted && preempted && !everyCallerCancelled() && !closed) {
+                    preempted = false;
+                    enqueue(this);
+                    return;
+                }
+                finish(value, failure, interrupted || closed);
+            }
+        }
+
+        /**
+         * Completes or fails this task and all tasks merged into it. Tasks whose caller cancelled them complete as
+         * cancelled, regardless of the outcome of the work. Must be called while holding the processor lock.
+         */
+        private void finish(@Nullable R value, @Nullable Throwable failure, boolean wasCancelled) {
+            complete(value, failure, wasCancelled || callerCancelled());
+            for(AsyncTask<R> task : merged) {
+                task.complete(value, failure, wasCancelled || task.callerCancelled());
+            }
+            merged.clear();
+        }
+
+        private void complete(@Nullable R value, @Nullable Throwable failure, boolean wasCancelled) {
+            if(wasCancelled) {
+                state = State.Cancelled;
+            } else if(failure != null) {
+                this.failure = failure;
+                state = State.Failed;
+            } else {
+                result = value;
+                state = State.Completed;
+            }
+            done.countDown();
+        }
+
+        private boolean callerCancelled() {
+            return cancelled || (externalCancel != null && externalCancel.cancelled());
+        }
+
+        /**
+         * @return True if the callers of this task and of all tasks merged into it have cancelled their task, such
+         *         that the work is not required any more.
+         */
+        private boolean everyCallerCancelled() {
+            if(!callerCancelled()) {
+                return false;
+            }
+            for(AsyncTask<R> task : merged) {
+                if(!task.callerCancelled()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+
+        @Override public void cancel() {
+            synchronized(AsyncProcessor.this) {
+                cancelled = true;
+                switch(state) {
+                    case Created:
+                        finish(null, null, true);
+                        break;
+                    case Queued:
+                        queue.remove(this);
+                        promoteMerged();
+                        finish(null, null, true);
+                        break;
+                    case Coalesced:
+                        if(mergedInto != null) {
+                            mergedInto.merged.remove(this);
+                        }
+                        finish(null, null, true);
+                        break;
+                    default:
+                        // Running tasks are cancelled cooperatively once every merged caller has cancelled, completed
+                        // tasks cannot be cancelled.
+                        break;
+                }
+            }
+        }
+
+        @Override public void cancel(int forceTimeout) {
+            cancel();
+            try {
+                forceCancelTimer.schedule(() -> {
+                    synchronized(AsyncProcessor.this) {
+                        // A coalesced task is executed by the task it was merged into.
+                        final AsyncTask<R> executing = mergedInto != null ? mergedInto : this;
+                        if(executing.state == State.Running && executing.thread != null
+                            && executing.cancel.cancelled()) {
+                            logger.debug("Forcing cancellation of {}", executing);
+                            executing.thread.interrupt();
+                        }
+                    }
+                }, forceTimeout, TimeUnit.MILLISECONDS);
+            } catch(RejectedExecutionException e) {
+                // Processor has been closed, running tasks are not forcibly cancelled any more.
+            }
+        }
+
+        @Override public boolean completed() {
+            return state == State.Completed;
+        }
+
+        @Override public boolean cancelled() {
+            return state == State.Cancelled;
+        }
+
+        @Override public @Nullable R result() {
+            return result;
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @throws RuntimeException
+         *             When the work of the task failed with given exception.
+         * @throws Error
+         *             When the work of the task failed with given error.
+         */
+        @Override public ITask<R> block() throws InterruptedException {
+            done.await();
+            if(state == State.Cancelled) {
+                throw new InterruptedException();
+            }
+            final Throwable failure = this.failure;
+            if(failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if(failure instanceof Error) {
+                throw (Error) failure;
+            }
+            return this;
+        }
+
+
+        @Override public int compareTo(AsyncTask<?> other) {
+            final int priorityComparison = priority.compareTo(other.priority);
+            if(priorityComparison != 0) {
+                return priorityComparison;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+
+        @Override public String toString() {
+            return (project != null ? "build of " + project : "task") + " (" + priority + ")";
+        }
+
+
+        private class TaskCancel implements ICancel {
+            @Override public boolean cancelled() {
+                return preempted || closed || everyCallerCancelled();
+            }
+
+            @Override public void throwIfCancelled() throws InterruptedException {
+                if(cancelled()) {
+                    throw new InterruptedException();
+                }
+            }
+
+            @Override public void cancel() {
+                AsyncTask.this.cancel();
+            }
+        }
+    }
+}
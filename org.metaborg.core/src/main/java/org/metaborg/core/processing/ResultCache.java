@@ -0,0 +1,310 @@
+package org.metaborg.core.processing;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+import javax.annotation.Nullable;
+
+import org.apache.commons.vfs2.FileName;
+import org.metaborg.core.language.ILanguageImpl;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import io.reactivex.rxjava3.subjects.BehaviorSubject;
+
+/**
+ * Cache of update subjects per resource, used by result processors. Each subject holds on to the latest result of its
+ * resource, so the total weight of cached subjects is bounded, evicting the least recently used subjects first. The
+ * weight of a subject is determined by a weigher from its latest change when the subject is inserted, and when a new
+ * result is recorded with {@link #update(FileName, ILanguageImpl)}. Subjects without a change weigh 1. Subjects that
+ * have observers are never evicted, since their observers expect to receive all future updates of their resource.
+ * Subjects without a change, or whose latest change is pending, are not evicted either, since a requester that obtained
+ * the subject may be about to wait for its next change. Evicted subjects are only removed from the cache, they are not
+ * completed, such that requesters that obtained them still receive their latest change. Subjects are indexed by the
+ * language of their latest result, such that all results of a language can be found without visiting every subject.
+ *
+ * @param <C>
+ *            Type of changes pushed to the subjects.
+ */
+public class ResultCache<C> {
+    /**
+     * Default maximum number of cached subjects, when every subject weighs 1.
+     */
+    public static final long defaultMaxSize = 4096;
+
+
+    /**
+     * Snapshot of cache statistics.
+     */
+    public static class Stats {
+        public final long size;
+        public final long weight;
+        public final long hits;
+        public final long misses;
+        public final long evictions;
+
+
+        public Stats(long size, long weight, long hits, long misses, long evictions) {
+            this.size = size;
+            this.weight = weight;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+        }
+
+
+        @Override public String toString() {
+            return "size: " + size + ", weight: " + weight + ", hits: " + hits + ", misses: " + misses
+                + ", evictions: " + evictions;
+        }
+    }
+
+
+    private static class Entry<C> {
+        public final BehaviorSubject<C> subject;
+        public @Nullable ILanguageImpl language;
+        public long weight;
+
+
+        public Entry(BehaviorSubject<C> subject) {
+            this.subject = subject;
+        }
+    }
+
+
+    private final LinkedHashMap<FileName, Entry<C>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<ILanguageImpl, Set<FileName>> entriesPerLanguage = Maps.newHashMap();
+
+    private final ToLongFunction<? super C> weigher;
+    private final Predicate<? super C> pending;
+
+    private long maxWeight;
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+
+    /**
+     * @param maxWeight
+     *            Maximum total weight of cached subjects.
+     * @param weigher
+     *            Function that computes the weight of a subject from its latest change.
+     * @param pending
+     *            Predicate that holds for changes after which a new change is expected, such as invalidations.
+     */
+    public ResultCache(long maxWeight, ToLongFunction<? super C> weigher, Predicate<? super C> pending) {
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.pending = pending;
+    }
+
+    /**
+     * @param maxSize
+     *            Maximum number of cached subjects.
+     * @param pending
+     *            Predicate that holds for changes after which a new change is expected, such as invalidations.
+     */
+    public ResultCache(long maxSize, Predicate<? super C> pending) {
+        this(maxSize, change -> 1, pending);
+    }
+
+    public ResultCache(Predicate<? super C> pending) {
+        this(defaultMaxSize, pending);
+    }
+
+    public ResultCache(long maxSize) {
+        this(maxSize, change -> false);
+    }
+
+    public ResultCache() {
+        this(defaultMaxSize);
+    }
+
+
+    /**
+     * Gets the subject for given resource, recording a hit or miss.
+     *
+     * @return Subject, or null if there is no subject for given resource.
+     */
+    public synchronized @Nullable BehaviorSubject<C> get(FileName resource) {
+        final @Nullable Entry<C> entry = entries.get(resource);
+        if(entry == null) {
+            ++misses;
+            return null;
+        }
+        ++hits;
+        return entry.subject;
+    }
+
+    /**
+     * Gets the subject for given resource, creating it if there is none, recording a hit or miss.
+     */
+    public synchronized BehaviorSubject<C> getOrCreate(FileName resource) {
+        final @Nullable Entry<C> entry = entries.get(resource);
+        if(entry != null) {
+            ++hits;
+            return entry.subject;
+        }
+        ++misses;
+        final BehaviorSubject<C> subject = BehaviorSubject.create();
+        insert(resource, subject);
+        return subject;
+    }
+
+    /**
+     * Sets the subject for given resource, if there is no subject for that resource yet. Does not record a hit or miss,
+     * since this is used to insert a subject after {@link #get(FileName)} recorded a miss.
+     *
+     * @return Existing subject, or null if given subject was set.
+     */
+    public synchronized @Nullable BehaviorSubject<C> putIfAbsent(FileName resource, BehaviorSubject<C> subject) {
+        final @Nullable Entry<C> entry = entries.get(resource);
+        if(entry != null) {
+            return entry.subject;
+        }
+        insert(resource, subject);
+        return null;
+    }
+
+    /**
+     * Records that a new result was pushed to the subject of given resource. Updates the weight of the subject from its
+     * latest change, and indexes the subject by the language of the result.
+     */
+    public synchronized void update(FileName resource, ILanguageImpl language) {
+        final @Nullable Entry<C> entry = entries.get(resource);
+        if(entry == null) {
+            return;
+        }
+        final long newWeight = weigh(entry.subject);
+        weight += newWeight - entry.weight;
+        entry.weight = newWeight;
+        if(!language.equals(entry.language)) {
+            unindex(resource, entry.language);
+            entry.language = language;
+            entriesPerLanguage.computeIfAbsent(language, l -> Sets.newHashSet()).add(resource);
+        }
+        evict(resource);
+    }
+
+    /**
+     * @return Subjects of resources whose latest result belongs to given language.
+     */
+    public synchronized Collection<BehaviorSubject<C>> get(ILanguageImpl language) {
+        final @Nullable Set<FileName> resources = entriesPerLanguage.get(language);
+        if(resources == null) {
+            return Lists.newArrayList();
+        }
+        final List<BehaviorSubject<C>> subjects = Lists.newArrayListWithCapacity(resources.size());
+        for(FileName resource : resources) {
+            subjects.add(entries.get(resource).subject);
+        }
+        return subjects;
+    }
+
+    /**
+     * Removes all subjects from the cache.
+     *
+     * @return Removed subjects.
+     */
+    public synchronized Collection<BehaviorSubject<C>> clear() {
+        final List<BehaviorSubject<C>> subjects = Lists.newArrayListWithCapacity(entries.size());
+        for(Entry<C> entry : entries.values()) {
+            subjects.add(entry.subject);
+        }
+        entries.clear();
+        entriesPerLanguage.clear();
+        weight = 0;
+        return subjects;
+    }
+
+
+    /**
+     * Sets the maximum total weight of cached subjects, evicting subjects if needed.
+     */
+    public synchronized void setMaxWeight(long maxWeight) {
+        this.maxWeight = maxWeight;
+        evict(null);
+    }
+
+    /**
+     * @return Snapshot of the statistics of this cache.
+     */
+    public synchronized Stats stats() {
+        return new Stats(entries.size(), weight, hits, misses, evictions);
+    }
+
+
+    private void insert(FileName resource, BehaviorSubject<C> subject) {
+        final Entry<C> entry = new Entry<>(subject);
+        entry.weight = weigh(subject);
+        weight += entry.weight;
+        entries.put(resource, entry);
+        evict(resource);
+    }
+
+    private long weigh(BehaviorSubject<C> subject) {
+        final @Nullable C change = subject.getValue();
+        if(change == null) {
+            return 1;
+        }
+        return Math.max(1, weigher.applyAsLong(change));
+    }
+
+
+    /**
+     * Evicts least recently used subjects until the cache is within its maximum weight, or no subject can be evicted.
+     *
+     * @param inserted
+     *            Resource whose subject was just inserted or updated and is about to be used, which is never evicted,
+     *            or null if there is none.
+     */
+    private void evict(@Nullable FileName inserted) {
+        if(weight <= maxWeight) {
+            return;
+        }
+        final Iterator<Map.Entry<FileName, Entry<C>>> iterator = entries.entrySet().iterator();
+        while(weight > maxWeight && iterator.hasNext()) {
+            final Map.Entry<FileName, Entry<C>> mapEntry = iterator.next();
+            final FileName resource = mapEntry.getKey();
+            final Entry<C> entry = mapEntry.getValue();
+            if(resource.equals(inserted) || !evictable(entry.subject)) {
+                continue;
+            }
+            iterator.remove();
+            unindex(resource, entry.language);
+            weight -= entry.weight;
+            ++evictions;
+        }
+    }
+
+    private boolean evictable(BehaviorSubject<C> subject) {
+        if(subject.hasObservers()) {
+            return false;
+        }
+        final @Nullable C change = subject.getValue();
+        return change != null && !pending.test(change);
+    }
+
+    private void unindex(FileName resource, @Nullable ILanguageImpl language) {
+        if(language == null) {
+            return;
+        }
+        final @Nullable Set<FileName> resources = entriesPerLanguage.get(language);
+        if(resources == null) {
+            return;
+        }
+        resources.remove(resource);
+        if(resources.isEmpty()) {
+            entriesPerLanguage.remove(language);
+        }
+    }
+}
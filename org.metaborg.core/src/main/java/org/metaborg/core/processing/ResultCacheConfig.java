@@ -0,0 +1,27 @@
+package org.metaborg.core.processing;
+
+/**
+ * Configuration of the result caches of the parse and analysis result processors. Bind a different instance in
+ * {@link org.metaborg.core.MetaborgModule#bindResultCache()} to change the bounds of the caches.
+ */
+public class ResultCacheConfig {
+    /**
+     * Default maximum weight of each result cache, in characters of the source text of cached results.
+     */
+    public static final long defaultMaxWeight = 16 * 1024 * 1024;
+
+    /**
+     * Maximum weight of each result cache. Results weigh as much as the number of characters of their source text,
+     * which is proportional to the size of their AST.
+     */
+    public final long maxWeight;
+
+
+    public ResultCacheConfig() {
+        this(defaultMaxWeight);
+    }
+
+    public ResultCacheConfig(long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+}
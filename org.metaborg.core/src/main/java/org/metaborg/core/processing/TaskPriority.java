@@ -0,0 +1,30 @@
+package org.metaborg.core.processing;
+
+/**
+ * Priority of tasks executed by an {@link AsyncProcessor}. Tasks with a higher priority are executed first.
+ */
+public enum TaskPriority {
+    /**
+     * Tasks that a user is waiting on, such as updating an open editor. Preempts running {@link #Background} tasks when
+     * no worker is available.
+     */
+    Interactive,
+
+    /**
+     * Default priority.
+     */
+    Normal,
+
+    /**
+     * Tasks that no user is waiting on, such as full project builds. May be preempted by {@link #Interactive} tasks.
+     */
+    Background;
+
+
+    /**
+     * @return Highest of this and given priority.
+     */
+    public TaskPriority max(TaskPriority other) {
+        return compareTo(other) <= 0 ? this : other;
+    }
+}
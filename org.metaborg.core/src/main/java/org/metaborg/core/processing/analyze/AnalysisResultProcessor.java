@@ -1,7 +1,6 @@
 package org.metaborg.core.processing.analyze;
 
 import java.util.Set;
-import java.util.concurrent.ConcurrentMap;
 
 import javax.annotation.Nullable;
 
@@ -16,6 +15,8 @@ import org.metaborg.core.analysis.IAnalyzeUnitUpdate;
 import org.metaborg.core.build.UpdateKind;
 import org.metaborg.core.context.IContext;
 import org.metaborg.core.language.ILanguageImpl;
+import org.metaborg.core.processing.ResultCache;
+import org.metaborg.core.processing.ResultCacheConfig;
 import org.metaborg.core.processing.parse.IParseResultRequester;
 import org.metaborg.core.syntax.IInputUnit;
 import org.metaborg.core.syntax.IParseUnit;
@@ -23,7 +24,6 @@ import org.metaborg.util.concurrent.IClosableLock;
 import org.metaborg.util.log.ILogger;
 import org.metaborg.util.log.LoggerUtils;
 
-import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 
 import io.reactivex.rxjava3.core.Observable;
@@ -36,21 +36,28 @@ public class AnalysisResultProcessor<I extends IInputUnit, P extends IParseUnit,
     private final IAnalysisService<P, A, AU> analysisService;
     private final IParseResultRequester<I, P> parseResultRequester;
 
-    private final ConcurrentMap<FileName, BehaviorSubject<AnalysisChange<A>>> updatesPerResource =
-        Maps.newConcurrentMap();
+    private final ResultCache<AnalysisChange<A>> updatesPerResource;
 
 
     @Inject public AnalysisResultProcessor(IAnalysisService<P, A, AU> analysisService,
-        IParseResultRequester<I, P> parseResultRequester) {
+        IParseResultRequester<I, P> parseResultRequester, ResultCacheConfig cacheConfig) {
         this.analysisService = analysisService;
         this.parseResultRequester = parseResultRequester;
+        this.updatesPerResource = new ResultCache<>(cacheConfig.maxWeight, AnalysisResultProcessor::weigh,
+            change -> change.kind == UpdateKind.Invalidate);
     }
 
     @Override public void close() {
-        for(BehaviorSubject<AnalysisChange<A>> updates : updatesPerResource.values()) {
+        for(BehaviorSubject<AnalysisChange<A>> updates : updatesPerResource.clear()) {
             updates.onComplete();
         }
-        updatesPerResource.clear();
+    }
+
+    /**
+     * @return Statistics of the analysis result cache.
+     */
+    public ResultCache.Stats cacheStats() {
+        return updatesPerResource.stats();
     }
 
 
@@ -71,6 +78,9 @@ public class AnalysisResultProcessor<I extends IInputUnit, P extends IParseUnit,
                 return kind != UpdateKind.Invalidate;
             }).findFirst().orElse(null);
             if(update == null) {
+                final String message = String.format("Analysis result for %s is no longer available", resource);
+                logger.error(message);
+                observer.onError(new AnalysisException(context, message));
                 return;
             }
 
@@ -139,7 +149,7 @@ public class AnalysisResultProcessor<I extends IInputUnit, P extends IParseUnit,
     }
 
     @Override public void invalidate(ILanguageImpl impl) {
-        for(BehaviorSubject<AnalysisChange<A>> changes : updatesPerResource.values()) {
+        for(BehaviorSubject<AnalysisChange<A>> changes : updatesPerResource.get(impl)) {
             final @Nullable AnalysisChange<A> change = changes.blockingStream().findFirst().orElse(null);
             if(change != null && change.result != null && impl.equals(change.result.context().language())) {
                 changes.onNext(AnalysisChange.<A>invalidate(change.resource));
@@ -159,6 +169,7 @@ public class AnalysisResultProcessor<I extends IInputUnit, P extends IParseUnit,
             logger.trace("Pushing analysis result for {}", name);
             final BehaviorSubject<AnalysisChange<A>> updates = getUpdates(name);
             updates.onNext(AnalysisChange.update(resource, result));
+            updatesPerResource.update(name, result.context().language());
         }
     }
 
@@ -186,10 +197,15 @@ public class AnalysisResultProcessor<I extends IInputUnit, P extends IParseUnit,
     }
 
 
+    /**
+     * Weighs changes by the length of the source text of their result, which is proportional to the size of its AST.
+     */
+    private static long weigh(AnalysisChange<?> change) {
+        return change.result != null ? change.result.input().input().text().length() : 1;
+    }
+
     private BehaviorSubject<AnalysisChange<A>> getUpdates(FileName file) {
-        final BehaviorSubject<AnalysisChange<A>> newUpdates = BehaviorSubject.create();
-        final BehaviorSubject<AnalysisChange<A>> prevUpdates = updatesPerResource.putIfAbsent(file, newUpdates);
-        return prevUpdates == null ? newUpdates : prevUpdates;
+        return updatesPerResource.getOrCreate(file);
     }
 
     private BehaviorSubject<AnalysisChange<A>> getUpdates(I input, IContext context) {
@@ -199,38 +215,42 @@ public class AnalysisResultProcessor<I extends IInputUnit, P extends IParseUnit,
         final FileObject source = input.source();
         final FileName name = source.getName();
 
-        // THREADING: it is possible that two different threads asking for a subject may do the parsing twice here, as
-        // this is not an atomic operation. However, the chance is very low and it does not break anything (only
-        // duplicates some work), so it is acceptable.
-        BehaviorSubject<AnalysisChange<A>> updates = updatesPerResource.get(name);
-        if(updates == null) {
-            updates = BehaviorSubject.create();
-            updatesPerResource.put(name, updates);
-            try {
-                logger.trace("Requesting parse result for {}", source);
-                final P parseResult = parseResultRequester.request(input).blockingSingle();
-                if(!parseResult.valid()) {
-                    updates.onNext(AnalysisChange.<A>error(source, new AnalysisException(context, "Parsing failed")));
-                    return updates;
-                }
+        final BehaviorSubject<AnalysisChange<A>> existingUpdates = updatesPerResource.get(name);
+        if(existingUpdates != null) {
+            return existingUpdates;
+        }
 
-                logger.trace("Analysing for {}", source);
-                final IAnalyzeResult<A, AU> result;
-                try(IClosableLock lock = context.write()) {
-                    result = analysisService.analyze(parseResult, context);
-                }
+        final BehaviorSubject<AnalysisChange<A>> updates = BehaviorSubject.create();
+        final BehaviorSubject<AnalysisChange<A>> prevUpdates = updatesPerResource.putIfAbsent(name, updates);
+        if(prevUpdates != null) {
+            return prevUpdates;
+        }
 
-                updates.onNext(AnalysisChange.<A>update(source, result.result()));
-                // HACK: ignore analyze unit updates from result.updates(), may cause incrementality problems.
-            } catch(AnalysisException e) {
-                final String message = logger.format("Analysis for {} failed", name);
-                logger.error(message, e);
-                updates.onNext(AnalysisChange.<A>error(source, e));
-            } catch(Exception e) {
-                final String message = logger.format("Analysis for {} failed", name);
-                logger.error(message, e);
-                updates.onNext(AnalysisChange.<A>error(source, new AnalysisException(context, message, e)));
+        try {
+            logger.trace("Requesting parse result for {}", source);
+            final P parseResult = parseResultRequester.request(input).blockingSingle();
+            if(!parseResult.valid()) {
+                updates.onNext(AnalysisChange.<A>error(source, new AnalysisException(context, "Parsing failed")));
+                return updates;
             }
+
+            logger.trace("Analysing for {}", source);
+            final IAnalyzeResult<A, AU> result;
+            try(IClosableLock lock = context.write()) {
+                result = analysisService.analyze(parseResult, context);
+            }
+
+            updates.onNext(AnalysisChange.<A>update(source, result.result()));
+            updatesPerResource.update(name, context.language());
+            // HACK: ignore analyze unit updates from result.updates(), may cause incrementality problems.
+        } catch(AnalysisException e) {
+            final String message = logger.format("Analysis for {} failed", name);
+            logger.error(message, e);
+            updates.onNext(AnalysisChange.<A>error(source, e));
+        } catch(Exception e) {
+            final String message = logger.format("Analysis for {} failed", name);
+            logger.error(message, e);
+            updates.onNext(AnalysisChange.<A>error(source, new AnalysisException(context, message, e)));
         }
         return updates;
     }
@@ -1,13 +1,13 @@
 package org.metaborg.core.processing.parse;
 
-import java.util.concurrent.ConcurrentMap;
-
 import javax.annotation.Nullable;
 
 import org.apache.commons.vfs2.FileName;
 import org.apache.commons.vfs2.FileObject;
 import org.metaborg.core.build.UpdateKind;
 import org.metaborg.core.language.ILanguageImpl;
+import org.metaborg.core.processing.ResultCache;
+import org.metaborg.core.processing.ResultCacheConfig;
 import org.metaborg.core.syntax.IInputUnit;
 import org.metaborg.core.syntax.IParseUnit;
 import org.metaborg.core.syntax.ISyntaxService;
@@ -15,7 +15,6 @@ import org.metaborg.core.syntax.ParseException;
 import org.metaborg.util.log.ILogger;
 import org.metaborg.util.log.LoggerUtils;
 
-import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 
 import io.reactivex.rxjava3.core.Observable;
@@ -27,18 +26,26 @@ public class ParseResultProcessor<I extends IInputUnit, P extends IParseUnit>
 
     private final ISyntaxService<I, P> syntaxService;
 
-    private final ConcurrentMap<FileName, BehaviorSubject<ParseChange<P>>> updatesPerResource = Maps.newConcurrentMap();
+    private final ResultCache<ParseChange<P>> updatesPerResource;
 
 
-    @Inject public ParseResultProcessor(ISyntaxService<I, P> syntaxService) {
+    @Inject public ParseResultProcessor(ISyntaxService<I, P> syntaxService, ResultCacheConfig cacheConfig) {
         this.syntaxService = syntaxService;
+        this.updatesPerResource = new ResultCache<>(cacheConfig.maxWeight, ParseResultProcessor::weigh,
+            change -> change.kind == UpdateKind.Invalidate);
     }
 
     @Override public void close() {
-        for(BehaviorSubject<ParseChange<P>> updates : updatesPerResource.values()) {
+        for(BehaviorSubject<ParseChange<P>> updates : updatesPerResource.clear()) {
             updates.onComplete();
         }
-        updatesPerResource.clear();
+    }
+
+    /**
+     * @return Statistics of the parse result cache.
+     */
+    public ResultCache.Stats cacheStats() {
+        return updatesPerResource.stats();
     }
 
 
@@ -56,6 +63,9 @@ public class ParseResultProcessor<I extends IInputUnit, P extends IParseUnit>
                 return kind != UpdateKind.Invalidate;
             }).findFirst().orElse(null);
             if(update == null) {
+                final String message = logger.format("Parse result for {} is no longer available", resource);
+                logger.error(message);
+                observer.onError(new ParseException(input, message));
                 return;
             }
 
@@ -115,7 +125,7 @@ public class ParseResultProcessor<I extends IInputUnit, P extends IParseUnit>
     }
 
     @Override public void invalidate(ILanguageImpl impl) {
-        for(BehaviorSubject<ParseChange<P>> changes : updatesPerResource.values()) {
+        for(BehaviorSubject<ParseChange<P>> changes : updatesPerResource.get(impl)) {
             final @Nullable ParseChange<P> change = changes.blockingStream().findFirst().orElse(null);
             if(change != null && change.unit != null && impl.equals(change.unit.input().langImpl())) {
                 changes.onNext(ParseChange.<P>invalidate(change.resource));
@@ -125,8 +135,10 @@ public class ParseResultProcessor<I extends IInputUnit, P extends IParseUnit>
 
     @Override public void update(FileObject resource, P unit) {
         logger.trace("Pushing parse result for {}", resource);
-        final BehaviorSubject<ParseChange<P>> updates = getUpdates(resource.getName());
+        final FileName name = resource.getName();
+        final BehaviorSubject<ParseChange<P>> updates = getUpdates(name);
         updates.onNext(ParseChange.<P>update(unit));
+        updatesPerResource.update(name, unit.input().langImpl());
     }
 
     @Override public void error(FileObject resource, ParseException exception) {
@@ -142,32 +154,41 @@ public class ParseResultProcessor<I extends IInputUnit, P extends IParseUnit>
     }
 
 
+    /**
+     * Weighs changes by the length of the source text of their result, which is proportional to the size of its AST.
+     */
+    private static long weigh(ParseChange<?> change) {
+        return change.unit != null ? change.unit.input().text().length() : 1;
+    }
+
     private BehaviorSubject<ParseChange<P>> getUpdates(FileName file) {
-        final BehaviorSubject<ParseChange<P>> newUpdates = BehaviorSubject.create();
-        final BehaviorSubject<ParseChange<P>> prevUpdates = updatesPerResource.putIfAbsent(file, newUpdates);
-        return prevUpdates == null ? newUpdates : prevUpdates;
+        return updatesPerResource.getOrCreate(file);
     }
 
     private BehaviorSubject<ParseChange<P>> getUpdates(I unit) {
         final FileObject resource = unit.source();
         final FileName name = resource.getName();
 
-        // THREADING: it is possible that two different threads asking for a subject may do the parsing twice here, as
-        // this is not an atomic operation. However, the chance is very low and it does not break anything (only
-        // duplicates some work), so it is acceptable.
-        BehaviorSubject<ParseChange<P>> updates = updatesPerResource.get(name);
-        if(updates == null) {
-            updates = BehaviorSubject.create();
-            updatesPerResource.put(name, updates);
-            try {
-                logger.trace("Parsing for {}", resource);
-                final P result = syntaxService.parse(unit);
-                updates.onNext(ParseChange.update(result));
-            } catch(ParseException e) {
-                final String message = String.format("Parsing for %s failed", name);
-                logger.error(message, e);
-                updates.onNext(ParseChange.<P>error(e));
-            }
+        final BehaviorSubject<ParseChange<P>> existingUpdates = updatesPerResource.get(name);
+        if(existingUpdates != null) {
+            return existingUpdates;
+        }
+
+        final BehaviorSubject<ParseChange<P>> updates = BehaviorSubject.create();
+        final BehaviorSubject<ParseChange<P>> prevUpdates = updatesPerResource.putIfAbsent(name, updates);
+        if(prevUpdates != null) {
+            return prevUpdates;
+        }
+
+        try {
+            logger.trace("Parsing for {}", resource);
+            final P result = syntaxService.parse(unit);
+            updates.onNext(ParseChange.update(result));
+            updatesPerResource.update(name, result.input().langImpl());
+        } catch(ParseException e) {
+            final String message = String.format("Parsing for %s failed", name);
+            logger.error(message, e);
+            updates.onNext(ParseChange.<P>error(e));
         }
         return updates;
     }
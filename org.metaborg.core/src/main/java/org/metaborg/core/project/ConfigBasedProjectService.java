@@ -1,11 +1,14 @@
 package org.metaborg.core.project;
 
-import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
 
 import org.apache.commons.vfs2.FileName;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
+import org.metaborg.core.config.AConfigService;
 import org.metaborg.core.config.ConfigRequest;
 import org.metaborg.core.config.IProjectConfig;
 import org.metaborg.core.config.IProjectConfigService;
@@ -14,13 +17,37 @@ import org.metaborg.core.source.ISourceTextService;
 import org.metaborg.util.log.ILogger;
 import org.metaborg.util.log.LoggerUtils;
 
+import com.google.common.base.Splitter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 
+/**
+ * Project service that finds projects by searching for a project configuration in the directory of a resource and its
+ * ancestors. Found projects are stored in a trie keyed by the segments of their location, such that finding the
+ * project of a resource takes time linear in the depth of the resource, regardless of the number of projects.
+ * Directories without a project configuration are remembered for a short time, to not check for a configuration again
+ * when resources outside of any project are looked up repeatedly. They are forgotten when a project configuration is
+ * written or invalidated through the project configuration service, or when {@link #invalidate()} is called.
+ */
 public class ConfigBasedProjectService implements IProjectService {
     private static final ILogger logger = LoggerUtils.logger(ConfigBasedProjectService.class);
 
-    private final ConcurrentMap<FileName, IProject> projects = Maps.newConcurrentMap();
+    private static final Splitter pathSplitter = Splitter.on(FileName.SEPARATOR_CHAR).omitEmptyStrings();
+    private static final int maxNoConfigDirs = 4096;
+    private static final long noConfigDirsExpirySeconds = 10;
+
+
+    private static class Node {
+        public final ConcurrentMap<String, Node> children = Maps.newConcurrentMap();
+        public volatile @Nullable IProject project;
+    }
+
+
+    private final ConcurrentMap<String, Node> roots = Maps.newConcurrentMap();
+    private final Cache<FileName, Boolean> noConfigDirs = CacheBuilder.newBuilder().maximumSize(maxNoConfigDirs)
+        .expireAfterWrite(noConfigDirsExpirySeconds, TimeUnit.SECONDS).build();
 
     private final ISourceTextService sourceTextService;
     private final IProjectConfigService projectConfigService;
@@ -29,24 +56,68 @@ public class ConfigBasedProjectService implements IProjectService {
         IProjectConfigService projectConfigService) {
         this.sourceTextService = sourceTextService;
         this.projectConfigService = projectConfigService;
+        if(projectConfigService instanceof AConfigService) {
+            ((AConfigService<?, ?>) projectConfigService).addInvalidationListener(this::invalidate);
+        }
+    }
+
+
+    /**
+     * Forgets which directories do not have a project configuration, such that newly created project configurations
+     * are found.
+     */
+    public void invalidate() {
+        noConfigDirs.invalidateAll();
     }
  
  
     @Override public IProject get(FileObject resource) {
-        IProject project = getProject(resource);
+        IProject project = getProject(resource.getName());
         if(project == null) {
             project = findProject(resource);
         }
         return project;
     }
 
-    private IProject getProject(FileObject resource) {
-        for(Map.Entry<FileName,IProject> entry : projects.entrySet()) {
-            if(resource.getName().isAncestor(entry.getKey())) {
-                return entry.getValue();
+    /**
+     * @return Project with the deepest location that is given name, or an ancestor of given name, or null if none.
+     */
+    private @Nullable IProject getProject(FileName name) {
+        Node node = roots.get(name.getRootURI());
+        if(node == null) {
+            return null;
+        }
+        IProject project = node.project;
+        for(String segment : pathSplitter.split(name.getPath())) {
+            node = node.children.get(segment);
+            if(node == null) {
+                break;
+            }
+            final IProject nodeProject = node.project;
+            if(nodeProject != null) {
+                project = nodeProject;
             }
         }
-        return null;
+        return project;
+    }
+
+    /**
+     * Adds given project at given location, unless a project already exists at that location.
+     * 
+     * @return Project at given location.
+     */
+    private synchronized IProject addProject(FileName name, IProject project) {
+        Node node = roots.computeIfAbsent(name.getRootURI(), uri -> new Node());
+        for(String segment : pathSplitter.split(name.getPath())) {
+            node = node.children.computeIfAbsent(segment, s -> new Node());
+        }
+        final IProject prevProject = node.project;
+        if(prevProject != null) {
+            logger.warn("Project with location {} already exists", name);
+            return prevProject;
+        }
+        node.project = project;
+        return project;
     }
  
     private IProject findProject(FileObject resource) {
@@ -54,6 +125,10 @@ public class ConfigBasedProjectService implements IProjectService {
             FileObject dir = (resource.isFolder() ? resource : resource.getParent());
             while(dir != null) {
                 FileName name = dir.getName();
+                if(noConfigDirs.getIfPresent(name) != null) {
+                    dir = dir.getParent();
+                    continue;
+                }
                 if(projectConfigService.available(dir)) {
                     final ConfigRequest<? extends IProjectConfig> configRequest = projectConfigService.get(dir);
                     if(!configRequest.valid()) {
@@ -67,14 +142,9 @@ public class ConfigBasedProjectService implements IProjectService {
                         return null;
                     }
 
-                    final IProject project = new Project(dir, config);
-                    IProject prevProject;
-                    if((prevProject = projects.putIfAbsent(name, project)) != null) {
-                        logger.warn("Project with location {} already exists", name);
-                        return prevProject;
-                    }
-                    return project;
+                    return addProject(name, new Project(dir, config));
                 }
+                noConfigDirs.put(name, true);
                 dir = dir.getParent();
             }
         } catch(FileSystemException e) {
@@ -21,6 +21,23 @@ public class AffectedSourceHelper {
      * @return Multi-line string that highlights the affected source code region.
      */
     public static @Nullable String affectedSourceText(ISourceRegion region, String sourceText, String indentation) {
+        return affectedSourceText(region, new LineIndex(sourceText), indentation);
+    }
+
+    /**
+     * Returns a multi-line string that highlights the affected source code region, given a line index of the full
+     * source text and indentation to use. Only visits the lines of the region, such that highlighting many regions of
+     * the same source text does not scan the text for each region.
+     * 
+     * @param region
+     *            Region in the source text that should be highlighted.
+     * @param lineIndex
+     *            Line index of the full source text.
+     * @param indentation
+     *            Indentation to add to each line in the resulting string.
+     * @return Multi-line string that highlights the affected source code region.
+     */
+    public static @Nullable String affectedSourceText(ISourceRegion region, LineIndex lineIndex, String indentation) {
         final int startOffset = region.startOffset();
         final int endOffset = region.endOffset();
 
@@ -28,11 +45,13 @@ public class AffectedSourceHelper {
         int endRow = -1;
         int startExtend = Integer.MAX_VALUE;
         int endExtend = 0;
-        int pos = 0;
-        final String[] lines = sourceText.split("\\r?\\n");
-        for(int i = 0; i < lines.length; ++i) {
-            final String line = lines[i];
+        // Lines that end before both offsets cannot contain the region, skip them.
+        final int firstLine = lineIndex.firstLineEndingAtOrAfter(Math.min(startOffset, endOffset + 1));
+        final int lineCount = lineIndex.lineCount();
+        for(int i = firstLine; i < lineCount; ++i) {
+            final String line = lineIndex.line(i);
             final int length = line.length();
+            int pos = lineIndex.lineStart(i);
 
             final int startDist = startOffset - pos;
             if(startDist >= 0 && startDist <= length) {
@@ -66,7 +85,7 @@ public class AffectedSourceHelper {
         final StringBuilder builder = new StringBuilder();
         for(int i = startRow; i <= endRow; ++i) {
             builder.append(indentation);
-            builder.append(lines[i].replace('\t', ' '));
+            builder.append(lineIndex.line(i).replace('\t', ' '));
             builder.append('\n');
         }
         if (startExtend <= endExtend) {
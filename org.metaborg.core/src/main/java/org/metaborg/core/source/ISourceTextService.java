@@ -1,6 +1,7 @@
 package org.metaborg.core.source;
 
 import java.io.IOException;
+import java.nio.charset.Charset;
 
 import org.apache.commons.vfs2.FileObject;
 
@@ -9,11 +10,36 @@ import org.apache.commons.vfs2.FileObject;
  */
 public interface ISourceTextService {
     /**
-     * Retrieves the text for given resource.
+     * Retrieves the text for given resource, decoded with the charset indicated by its byte order mark, or the default
+     * charset if it has none.
      * 
      * @param resource
      *            Resource to retrieve text for.
      * @return Text for given resource.
      */
     String text(FileObject resource) throws IOException;
+
+    /**
+     * Retrieves the text for given resource, decoded with given charset. Defaults to {@link #text(FileObject)} for
+     * implementations that do not support choosing a charset.
+     * 
+     * @param resource
+     *            Resource to retrieve text for.
+     * @param charset
+     *            Charset to decode the resource with.
+     * @return Text for given resource.
+     */
+    default String text(FileObject resource, Charset charset) throws IOException {
+        return text(resource);
+    }
+
+    /**
+     * Notifies that given resource has changed, such that text retrieved for it before is not reused. Does nothing for
+     * implementations that do not cache texts.
+     * 
+     * @param resource
+     *            Resource that changed.
+     */
+    default void invalidate(FileObject resource) {
+    }
 }
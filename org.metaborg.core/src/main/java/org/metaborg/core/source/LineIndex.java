@@ -0,0 +1,85 @@
+package org.metaborg.core.source;
+
+/**
+ * Index of the lines of a source text, to find the lines of a region without scanning the whole text. Lines are split
+ * the same way as {@link AffectedSourceHelper} does: at line feeds, optionally preceded by a carriage return, where
+ * every line terminator counts as a single character when computing line offsets.
+ */
+public class LineIndex {
+    private final String text;
+    private final String[] lines;
+    private final int[] ends;
+
+
+    public LineIndex(String text) {
+        this.text = text;
+        this.lines = text.split("\\r?\\n");
+        this.ends = new int[lines.length];
+        int pos = 0;
+        for(int i = 0; i < lines.length; ++i) {
+            pos += lines[i].length() + 1;
+            ends[i] = pos;
+        }
+    }
+
+
+    /**
+     * @return Source text this index was built for.
+     */
+    public String text() {
+        return text;
+    }
+
+    /**
+     * @return True if this index was built for given text, false otherwise.
+     */
+    public boolean isIndexOf(String text) {
+        return this.text == text || this.text.equals(text);
+    }
+
+    /**
+     * @return Number of lines.
+     */
+    public int lineCount() {
+        return lines.length;
+    }
+
+    /**
+     * @return Text of given line, without line terminator.
+     */
+    public String line(int line) {
+        return lines[line];
+    }
+
+    /**
+     * @return Offset of the first character of given line.
+     */
+    public int lineStart(int line) {
+        return ends[line] - lines[line].length() - 1;
+    }
+
+    /**
+     * @return Offset after the line terminator of given line.
+     */
+    public int lineEnd(int line) {
+        return ends[line];
+    }
+
+    /**
+     * @return First line whose {@link #lineEnd(int) end} is greater than or equal to given offset, or
+     *         {@link #lineCount()} if there is no such line.
+     */
+    public int firstLineEndingAtOrAfter(int offset) {
+        int low = 0;
+        int high = ends.length;
+        while(low < high) {
+            final int middle = (low + high) >>> 1;
+            if(ends[middle] < offset) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -2,15 +2,161 @@ package org.metaborg.core.source;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+import javax.annotation.Nullable;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.vfs2.FileContent;
+import org.apache.commons.vfs2.FileName;
 import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.metaborg.util.log.ILogger;
+import org.metaborg.util.log.LoggerUtils;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.inject.Inject;
 
+/**
+ * Source text service that caches the text of resources, keyed by resource name, and validated against the
+ * modification time and size of the resource. Repeated reads of an unchanged resource return the cached text. The
+ * cache is bounded by the total number of characters of the stored texts, evicting the least recently used entries
+ * when full.
+ *
+ * Resources without an explicit charset are decoded with the charset indicated by their byte order mark, or the
+ * charset set with the {@value #charsetProperty} system property, defaulting to the platform default charset.
+ */
 public class SourceTextService implements ISourceTextService {
+    private static final ILogger logger = LoggerUtils.logger(SourceTextService.class);
+
+    public static final String charsetProperty = "metaborg.source.charset";
+
+    /**
+     * Default maximum total number of characters of texts stored in the cache.
+     */
+    public static final long defaultMaxCharacters = 16 * 1024 * 1024;
+
+
+    private static class Entry {
+        public final long modified;
+        public final long size;
+        public final @Nullable Charset charset;
+        public final String text;
+
+
+        public Entry(long modified, long size, @Nullable Charset charset, String text) {
+            this.modified = modified;
+            this.size = size;
+            this.charset = charset;
+            this.text = text;
+        }
+    }
+
+
+    private final Charset defaultCharset;
+    private final Cache<FileName, Entry> entries;
+
+
+    public SourceTextService(Charset defaultCharset, long maxCharacters) {
+        this.defaultCharset = defaultCharset;
+        this.entries = CacheBuilder.newBuilder().maximumWeight(maxCharacters)
+            .<FileName, Entry>weigher((name, entry) -> entry.text.length()).build();
+    }
+
+    @Inject public SourceTextService() {
+        this(configuredCharset(), defaultMaxCharacters);
+    }
+
+
     @Override public String text(FileObject resource) throws IOException {
-        try(final InputStream inputStream = resource.getContent().getInputStream()) {
-            return IOUtils.toString(inputStream, Charset.defaultCharset());
+        return cachedText(resource, null);
+    }
+
+    @Override public String text(FileObject resource, Charset charset) throws IOException {
+        return cachedText(resource, charset);
+    }
+
+    /**
+     * Removes the cached text of given resource.
+     */
+    @Override public void invalidate(FileObject resource) {
+        entries.invalidate(resource.getName());
+    }
+
+    /**
+     * Removes all cached texts.
+     */
+    public void invalidateAll() {
+        entries.invalidateAll();
+    }
+
+
+    private String cachedText(FileObject resource, @Nullable Charset charset) throws IOException {
+        final FileName name = resource.getName();
+        final FileContent content = resource.getContent();
+        final long modified;
+        final long size;
+        try {
+            modified = content.getLastModifiedTime();
+            size = content.getSize();
+        } catch(FileSystemException e) {
+            // Resource does not support modification times, cannot validate cached texts.
+            entries.invalidate(name);
+            return read(content, charset);
+        }
+
+        final @Nullable Entry entry = entries.getIfPresent(name);
+        if(entry != null && entry.modified == modified && entry.size == size
+            && Objects.equals(entry.charset, charset)) {
+            return entry.text;
+        }
+
+        final String text = read(content, charset);
+        entries.put(name, new Entry(modified, size, charset, text));
+        return text;
+    }
+
+    private String read(FileContent content, @Nullable Charset charset) throws IOException {
+        final ByteBuffer bytes;
+        try(final InputStream inputStream = content.getInputStream()) {
+            bytes = ByteBuffer.wrap(IOUtils.toByteArray(inputStream));
+        }
+        final Charset decodeCharset = charset != null ? charset : detect(bytes);
+        return decodeCharset.decode(bytes).toString();
+    }
+
+    private Charset detect(ByteBuffer bytes) {
+        final int length = bytes.remaining();
+        if(length >= 3 && (bytes.get(0) & 0xFF) == 0xEF && (bytes.get(1) & 0xFF) == 0xBB
+            && (bytes.get(2) & 0xFF) == 0xBF) {
+            return StandardCharsets.UTF_8;
+        }
+        if(length >= 2) {
+            final int first = bytes.get(0) & 0xFF;
+            final int second = bytes.get(1) & 0xFF;
+            if((first == 0xFE && second == 0xFF) || (first == 0xFF && second == 0xFE)) {
+                // UTF-16 decoder determines the byte order from the byte order mark, and skips it.
+                return StandardCharsets.UTF_16;
+            }
+        }
+        return defaultCharset;
+    }
+
+    private static Charset configuredCharset() {
+        final String name = System.getProperty(charsetProperty);
+        if(name == null || name.isEmpty()) {
+            return Charset.defaultCharset();
+        }
+        try {
+            return Charset.forName(name);
+        } catch(IllegalArgumentException e) {
+            logger.warn("Charset {} set with {} is not supported, using platform default charset", e, name,
+                charsetProperty);
+            return Charset.defaultCharset();
         }
     }
 }
@@ -0,0 +1,123 @@
+package org.metaborg.core.style;
+
+import java.util.Arrays;
+
+/**
+ * Compact styling of a source text. Styled regions are packed into a single array as runs of (offset, length, style
+ * identifier) triples, in ascending order of offset, without overlap. Adjacent runs with the same style are merged.
+ * Style identifiers index into a table of distinct styles.
+ */
+public class StyleRuns {
+    private static final int fields = 3;
+
+    private final int[] runs;
+    private final int size;
+    private final IStyle[] styles;
+
+
+    private StyleRuns(int[] runs, int size, IStyle[] styles) {
+        this.runs = runs;
+        this.size = size;
+        this.styles = styles;
+    }
+
+
+    /**
+     * @return Number of runs.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Start offset of given run.
+     */
+    public int offset(int run) {
+        return runs[run * fields];
+    }
+
+    /**
+     * @return Number of characters of given run.
+     */
+    public int length(int run) {
+        return runs[run * fields + 1];
+    }
+
+    /**
+     * @return Style identifier of given run.
+     */
+    public int styleId(int run) {
+        return runs[run * fields + 2];
+    }
+
+    /**
+     * @return Style of given run.
+     */
+    public IStyle style(int run) {
+        return styles[styleId(run)];
+    }
+
+    /**
+     * @return Number of distinct styles in the style table.
+     */
+    public int styleCount() {
+        return styles.length;
+    }
+
+    /**
+     * @return Style for given style identifier.
+     */
+    public IStyle styleById(int styleId) {
+        return styles[styleId];
+    }
+
+
+    /**
+     * Builder for {@link StyleRuns}, merging adjacent runs with the same style.
+     */
+    public static class Builder {
+        private final IStyle[] styles;
+
+        private int[] runs;
+        private int size = 0;
+
+
+        /**
+         * @param styles
+         *            Table of distinct styles, indexed by style identifier. Not copied.
+         * @param expectedSize
+         *            Expected number of runs.
+         */
+        public Builder(IStyle[] styles, int expectedSize) {
+            this.styles = styles;
+            this.runs = new int[Math.max(expectedSize, 1) * fields];
+        }
+
+
+        /**
+         * Adds a run. Runs must be added in ascending order of offset and may not overlap.
+         */
+        public Builder add(int offset, int length, int styleId) {
+            if(size > 0) {
+                final int last = (size - 1) * fields;
+                if(runs[last + 2] == styleId && runs[last] + runs[last + 1] == offset) {
+                    runs[last + 1] += length;
+                    return this;
+                }
+            }
+            final int next = size * fields;
+            if(next + fields > runs.length) {
+                runs = Arrays.copyOf(runs, runs.length * 2);
+            }
+            runs[next] = offset;
+            runs[next + 1] = length;
+            runs[next + 2] = styleId;
+            ++size;
+            return this;
+        }
+
+        public StyleRuns build() {
+            return new StyleRuns(runs, size, styles);
+        }
+    }
+}
@@ -17,4 +17,20 @@ public interface ITransformConfig {
      * If this returns true, the transformation should be performed without side effects like writing output files.
      */
     public boolean dryRun();
+
+    /**
+     * If this returns true, output files are only written when their content changes, such that the modification time
+     * of unchanged output files is preserved.
+     */
+    public default boolean writeIfChanged() {
+        return false;
+    }
+
+    /**
+     * Number of worker threads used to transform multiple units, or 1 to transform them on the calling thread. Results
+     * are always returned in the order of the inputs.
+     */
+    public default int threads() {
+        return 1;
+    }
 }
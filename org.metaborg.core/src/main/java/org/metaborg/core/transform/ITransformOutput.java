@@ -17,4 +17,13 @@ public interface ITransformOutput {
      * Output file, or null if output was not written to a file.
      */
     @Nullable FileObject output();
+
+    /**
+     * Whether the output file was written, or false if it was not written because its content did not change, or if
+     * output was not written to a file. Defaults to whether there is an output file, for implementations that always
+     * write their output.
+     */
+    default boolean changed() {
+        return output() != null;
+    }
 }
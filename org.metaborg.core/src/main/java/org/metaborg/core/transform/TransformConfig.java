@@ -7,26 +7,35 @@ import org.metaborg.core.source.ISourceRegion;
 public class TransformConfig implements ITransformConfig {
     private final @Nullable ISourceRegion selection;
     private final boolean dry;
+    private final boolean writeIfChanged;
+    private final int threads;
 
 
-    public TransformConfig(@Nullable ISourceRegion selection, boolean dry) {
+    public TransformConfig(@Nullable ISourceRegion selection, boolean dry, boolean writeIfChanged, int threads) {
         this.selection = selection;
         this.dry = dry;
+        this.writeIfChanged = writeIfChanged;
+        this.threads = threads;
+    }
+
+    public TransformConfig(@Nullable ISourceRegion selection, boolean dry, boolean writeIfChanged) {
+        this(selection, dry, writeIfChanged, 1);
+    }
+
+    public TransformConfig(@Nullable ISourceRegion selection, boolean dry) {
+        this(selection, dry, false);
     }
 
     public TransformConfig(boolean dry) {
-        this.selection = null;
-        this.dry = dry;
+        this(null, dry, false);
     }
 
     public TransformConfig(@Nullable ISourceRegion selection) {
-        this.selection = selection;
-        this.dry = false;
+        this(selection, false, false);
     }
 
     public TransformConfig() {
-        this.selection = null;
-        this.dry = false;
+        this(null, false, false);
     }
 
 
@@ -37,4 +46,12 @@ public class TransformConfig implements ITransformConfig {
     @Override public boolean dryRun() {
         return dry;
     }
+
+    @Override public boolean writeIfChanged() {
+        return writeIfChanged;
+    }
+
+    @Override public int threads() {
+        return threads;
+    }
 }
@@ -0,0 +1,340 @@
+package org.metaborg.core.test.processing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.VFS;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.metaborg.core.MetaborgRuntimeException;
+import org.metaborg.core.analysis.IAnalyzeUnit;
+import org.metaborg.core.analysis.IAnalyzeUnitUpdate;
+import org.metaborg.core.build.BuildInput;
+import org.metaborg.core.build.BuildOrder;
+import org.metaborg.core.build.BuildState;
+import org.metaborg.core.build.CleanInput;
+import org.metaborg.core.build.IBuildOutput;
+import org.metaborg.core.build.IBuilder;
+import org.metaborg.core.language.LanguageComponentChange;
+import org.metaborg.core.language.LanguageImplChange;
+import org.metaborg.core.language.dialect.IDialectProcessor;
+import org.metaborg.core.processing.AsyncProcessor;
+import org.metaborg.core.processing.ILanguageChangeProcessor;
+import org.metaborg.core.processing.ITask;
+import org.metaborg.core.processing.TaskPriority;
+import org.metaborg.core.project.IProject;
+import org.metaborg.core.project.Project;
+import org.metaborg.core.resource.ResourceChange;
+import org.metaborg.core.syntax.IParseUnit;
+import org.metaborg.core.transform.ITransformUnit;
+import org.metaborg.util.task.ICancel;
+import org.metaborg.util.task.IProgress;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+
+public class AsyncProcessorTest {
+    private static final long timeout = 10;
+
+    private TestBuilder builder;
+    private AsyncProcessor<IParseUnit, IAnalyzeUnit, IAnalyzeUnitUpdate, ITransformUnit<?>> processor;
+
+
+    @Before public void setUp() {
+        builder = new TestBuilder();
+        processor = new AsyncProcessor<>(new NullDialectProcessor(), builder, new NullLanguageChangeProcessor());
+    }
+
+    @After public void tearDown() {
+        processor.close();
+    }
+
+
+    @Test public void testCoalescesQueuedBuilds() throws Exception {
+        final ITask<?> blocker = build("blocker", TaskPriority.Normal, null).schedule();
+        assertEquals("blocker", started());
+
+        final ITask<?> first = build("project", TaskPriority.Normal, null, "a").schedule();
+        final ITask<?> second = build("project", TaskPriority.Normal, null, "b").schedule();
+        builder.release(1);
+        blocker.block();
+
+        final BuildInput input = builder.started.poll(timeout, TimeUnit.SECONDS);
+        assertNotNull(input);
+        assertEquals(Lists.newArrayList("a", "b"), changes(input));
+        builder.release(1);
+        first.block();
+        second.block();
+        assertTrue(first.completed());
+        assertTrue(second.completed());
+        assertEquals(2, builder.builds.get());
+    }
+
+    @Test public void testCancelQueuedBuild() throws Exception {
+        final ITask<?> blocker = build("blocker", TaskPriority.Normal, null).schedule();
+        assertEquals("blocker", started());
+
+        final ITask<?> queued = build("project", TaskPriority.Normal, null).schedule();
+        queued.cancel();
+        assertTrue(queued.cancelled());
+        builder.release(1);
+        blocker.block();
+
+        // Schedule and await another build to ensure that the cancelled build did not run.
+        final ITask<?> after = build("after", TaskPriority.Normal, null).schedule();
+        assertEquals("after", started());
+        builder.release(1);
+        after.block();
+        assertEquals(2, builder.builds.get());
+    }
+
+    @Test public void testPromotesMergedBuildWhenTargetCancelled() throws Exception {
+        final ITask<?> blocker = build("blocker", TaskPriority.Normal, null).schedule();
+        assertEquals("blocker", started());
+
+        final ITask<?> first = build("project", TaskPriority.Normal, null, "a").schedule();
+        final ITask<?> second = build("project", TaskPriority.Normal, null, "b").schedule();
+        final ITask<?> third = build("project", TaskPriority.Normal, null, "c").schedule();
+        first.cancel();
+        assertTrue(first.cancelled());
+        assertFalse(second.cancelled());
+        assertFalse(third.cancelled());
+        builder.release(1);
+        blocker.block();
+
+        final BuildInput input = builder.started.poll(timeout, TimeUnit.SECONDS);
+        assertNotNull(input);
+        assertEquals(Lists.newArrayList("b", "c"), changes(input));
+        builder.release(1);
+        second.block();
+        third.block();
+        assertTrue(second.completed());
+        assertTrue(third.completed());
+    }
+
+    @Test public void testRunningBuildCancelledWhenAllMergedCallersCancel() throws Exception {
+        final ITask<?> blocker = build("blocker", TaskPriority.Normal, null).schedule();
+        assertEquals("blocker", started());
+
+        final TestCancel externalCancel = new TestCancel();
+        final ITask<?> first = build("project", TaskPriority.Normal, null, "a").schedule();
+        final ITask<?> second = build("project", TaskPriority.Normal, externalCancel, "b").schedule();
+        builder.release(1);
+        blocker.block();
+        assertEquals("project", started());
+
+        first.cancel();
+        assertFalse(builder.cancel.cancelled());
+        externalCancel.cancel();
+        assertTrue(builder.cancel.cancelled());
+
+        assertCancelled(first);
+        assertCancelled(second);
+    }
+
+    @Test public void testCancelledCallerDoesNotReceiveResult() throws Exception {
+        final ITask<?> blocker = build("blocker", TaskPriority.Normal, null).schedule();
+        assertEquals("blocker", started());
+
+        final ITask<?> first = build("project", TaskPriority.Normal, null, "a").schedule();
+        final ITask<?> second = build("project", TaskPriority.Normal, null, "b").schedule();
+        builder.release(1);
+        blocker.block();
+        assertEquals("project", started());
+
+        second.cancel();
+        assertTrue(second.cancelled());
+        builder.release(1);
+        first.block();
+        assertTrue(first.completed());
+    }
+
+    @Test public void testPreemptsAndRequeuesBackgroundBuild() throws Exception {
+        final ITask<?> background = build("background", TaskPriority.Background, null).schedule();
+        assertEquals("background", started());
+
+        final ITask<?> interactive = build("interactive", TaskPriority.Interactive, null).schedule();
+        assertEquals("interactive", started());
+        assertFalse(background.completed());
+        assertFalse(background.cancelled());
+        builder.release(1);
+        interactive.block();
+
+        assertEquals("background", started());
+        builder.release(1);
+        background.block();
+        assertTrue(interactive.completed());
+        assertTrue(background.completed());
+        assertEquals(3, builder.builds.get());
+    }
+
+    @Test public void testDoesNotPreemptNormalBuild() throws Exception {
+        final ITask<?> normal = build("normal", TaskPriority.Normal, null).schedule();
+        assertEquals("normal", started());
+
+        final ITask<?> interactive = build("interactive", TaskPriority.Interactive, null).schedule();
+        assertFalse(builder.cancel.cancelled());
+        builder.release(2);
+        normal.block();
+        interactive.block();
+        assertEquals(2, builder.builds.get());
+    }
+
+    @Test public void testRethrowsFailureFromBlock() throws Exception {
+        final MetaborgRuntimeException failure = new MetaborgRuntimeException("failure");
+        builder.failure = failure;
+        final ITask<?> task = build("project", TaskPriority.Normal, null).schedule();
+        builder.release(1);
+        try {
+            task.block();
+            fail("Expected failure to be rethrown");
+        } catch(MetaborgRuntimeException e) {
+            assertSame(failure, e);
+        }
+        assertFalse(task.completed());
+        assertFalse(task.cancelled());
+    }
+
+    @Test public void testCloseCancelsQueuedAndRunningTasks() throws Exception {
+        final ITask<?> running = build("running", TaskPriority.Normal, null).schedule();
+        assertEquals("running", started());
+        final ITask<?> queued = build("queued", TaskPriority.Normal, null).schedule();
+
+        processor.close();
+        assertTrue(queued.cancelled());
+        assertCancelled(running);
+
+        final ITask<?> afterClose = build("after", TaskPriority.Normal, null).schedule();
+        assertTrue(afterClose.cancelled());
+    }
+
+
+    private ITask<?> build(String name, TaskPriority priority, @Nullable ICancel cancel, String... changes)
+        throws FileSystemException {
+        final IProject project = new Project(resolve(name), null);
+        final List<ResourceChange> sourceChanges = Lists.newArrayList();
+        for(String change : changes) {
+            sourceChanges.add(new ResourceChange(resolve(name + "/" + change)));
+        }
+        final BuildInput input = new BuildInput(new BuildState(), project, sourceChanges, HashMultimap.create(),
+            new BuildOrder(Collections.emptyList()), null, false, null, false, null, Collections.emptyList(), null,
+            false, ImmutableSet.of(), 1, 1, false, 1);
+        return processor.build(input, priority, null, cancel);
+    }
+
+    private static FileObject resolve(String path) throws FileSystemException {
+        return VFS.getManager().resolveFile("ram:///" + path);
+    }
+
+    private String started() throws InterruptedException {
+        final BuildInput input = builder.started.poll(timeout, TimeUnit.SECONDS);
+        assertNotNull("Build did not start", input);
+        return input.project.location().getName().getBaseName();
+    }
+
+    private static List<String> changes(BuildInput input) {
+        final List<String> names = Lists.newArrayList();
+        for(ResourceChange change : input.sourceChanges) {
+            names.add(change.resource.getName().getBaseName());
+        }
+        return names;
+    }
+
+    private static void assertCancelled(ITask<?> task) {
+        try {
+            task.block();
+            fail("Expected task to be cancelled");
+        } catch(InterruptedException e) {
+            assertTrue(task.cancelled());
+        }
+    }
+
+
+    private static class TestBuilder
+        implements IBuilder<IParseUnit, IAnalyzeUnit, IAnalyzeUnitUpdate, ITransformUnit<?>> {
+        private final BlockingQueue<BuildInput> started = new LinkedBlockingQueue<>();
+        private final Semaphore permits = new Semaphore(0);
+        private volatile ICancel cancel;
+        private final AtomicInteger builds = new AtomicInteger();
+        private volatile @Nullable RuntimeException failure;
+
+
+        public void release(int count) {
+            permits.release(count);
+        }
+
+
+        @Override public IBuildOutput<IParseUnit, IAnalyzeUnit, IAnalyzeUnitUpdate, ITransformUnit<?>>
+            build(BuildInput input, IProgress progress, ICancel cancel) throws InterruptedException {
+            this.cancel = cancel;
+            builds.incrementAndGet();
+            started.add(input);
+            while(true) {
+                cancel.throwIfCancelled();
+                if(permits.tryAcquire(10, TimeUnit.MILLISECONDS)) {
+                    break;
+                }
+            }
+            if(failure != null) {
+                throw failure;
+            }
+            return null;
+        }
+
+        @Override public void clean(CleanInput input, IProgress progress, ICancel cancellation) {
+        }
+    }
+
+    private static class TestCancel implements ICancel {
+        private volatile boolean cancelled = false;
+
+
+        @Override public boolean cancelled() {
+            return cancelled;
+        }
+
+        @Override public void throwIfCancelled() throws InterruptedException {
+            if(cancelled) {
+                throw new InterruptedException();
+            }
+        }
+
+        @Override public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    private static class NullDialectProcessor implements IDialectProcessor {
+        @Override public void update(FileObject location, Iterable<ResourceChange> changes) {
+        }
+
+        @Override public void update(LanguageImplChange change) {
+        }
+    }
+
+    private static class NullLanguageChangeProcessor implements ILanguageChangeProcessor {
+        @Override public void processComponentChange(LanguageComponentChange change) {
+        }
+
+        @Override public void processImplChange(LanguageImplChange change) {
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package org.metaborg.core.test.processing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.vfs2.FileName;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.VFS;
+import org.junit.Test;
+import org.metaborg.core.language.ILanguageImpl;
+import org.metaborg.core.language.LanguageIdentifier;
+import org.metaborg.core.language.LanguageImplementation;
+import org.metaborg.core.language.LanguageVersion;
+import org.metaborg.core.processing.ResultCache;
+
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.subjects.BehaviorSubject;
+
+public class ResultCacheTest {
+    private static final String pending = "pending";
+    private static final ILanguageImpl language =
+        new LanguageImplementation(new LanguageIdentifier("org.example", "test", new LanguageVersion(1)), null);
+
+
+    @Test public void testEvictsLeastRecentlyUsed() throws FileSystemException {
+        final ResultCache<String> cache = new ResultCache<>(2);
+        cache.getOrCreate(name("a")).onNext("a");
+        cache.getOrCreate(name("b")).onNext("b");
+        cache.get(name("a"));
+        cache.getOrCreate(name("c")).onNext("c");
+
+        assertNotNull(cache.get(name("a")));
+        assertNull(cache.get(name("b")));
+        assertNotNull(cache.get(name("c")));
+        assertEquals(1, cache.stats().evictions);
+    }
+
+    @Test public void testNeverEvictsInsertedSubject() throws FileSystemException {
+        final ResultCache<String> cache = new ResultCache<>(0);
+        final BehaviorSubject<String> a = cache.getOrCreate(name("a"));
+        assertSame(a, cache.get(name("a")));
+
+        a.onNext("a");
+        final BehaviorSubject<String> b = BehaviorSubject.create();
+        assertNull(cache.putIfAbsent(name("b"), b));
+        assertNull(cache.get(name("a")));
+        assertSame(b, cache.get(name("b")));
+    }
+
+    @Test public void testDoesNotCompleteEvictedSubject() throws FileSystemException {
+        final ResultCache<String> cache = new ResultCache<>(1);
+        final BehaviorSubject<String> a = cache.getOrCreate(name("a"));
+        a.onNext("a");
+        cache.getOrCreate(name("b"));
+
+        assertNull(cache.get(name("a")));
+        assertFalse(a.hasComplete());
+        assertEquals("a", a.blockingStream().findFirst().orElse(null));
+    }
+
+    @Test public void testDoesNotEvictObservedSubject() throws FileSystemException {
+        final ResultCache<String> cache = new ResultCache<>(1);
+        final BehaviorSubject<String> a = cache.getOrCreate(name("a"));
+        a.onNext("a");
+        final Disposable subscription = a.subscribe();
+        cache.getOrCreate(name("b")).onNext("b");
+        assertSame(a, cache.get(name("a")));
+
+        subscription.dispose();
+        cache.getOrCreate(name("c"));
+        assertNull(cache.get(name("a")));
+    }
+
+    @Test public void testDoesNotEvictPendingSubject() throws FileSystemException {
+        final ResultCache<String> cache = new ResultCache<>(1, pending::equals);
+        final BehaviorSubject<String> a = cache.getOrCreate(name("a"));
+        a.onNext(pending);
+        cache.getOrCreate(name("b")).onNext("b");
+        assertSame(a, cache.get(name("a")));
+
+        a.onNext("a");
+        cache.getOrCreate(name("c"));
+        assertNull(cache.get(name("a")));
+    }
+
+    @Test public void testDoesNotEvictSubjectWithoutChange() throws FileSystemException {
+        final ResultCache<String> cache = new ResultCache<>(1);
+        final BehaviorSubject<String> a = cache.getOrCreate(name("a"));
+        cache.getOrCreate(name("b"));
+        assertSame(a, cache.get(name("a")));
+        assertEquals(0, cache.stats().evictions);
+    }
+
+    @Test public void testSetMaxWeightEvicts() throws FileSystemException {
+        final ResultCache<String> cache = new ResultCache<>(3);
+        cache.getOrCreate(name("a")).onNext("a");
+        cache.getOrCreate(name("b")).onNext("b");
+        cache.getOrCreate(name("c")).onNext("c");
+
+        cache.setMaxWeight(1);
+        assertNull(cache.get(name("a")));
+        assertNull(cache.get(name("b")));
+        assertNotNull(cache.get(name("c")));
+        assertEquals(1, cache.stats().size);
+    }
+
+    @Test public void testEvictsByWeight() throws FileSystemException {
+        final ResultCache<String> cache = new ResultCache<>(10, String::length, change -> false);
+        cache.getOrCreate(name("a")).onNext("aaaa");
+        cache.update(name("a"), language);
+        cache.getOrCreate(name("b")).onNext("bbbb");
+        cache.update(name("b"), language);
+        assertEquals(8, cache.stats().weight);
+
+        cache.getOrCreate(name("c")).onNext("cccccc");
+        cache.update(name("c"), language);
+        assertNull(cache.get(name("a")));
+        assertNotNull(cache.get(name("b")));
+        assertNotNull(cache.get(name("c")));
+        assertEquals(10, cache.stats().weight);
+        assertEquals(1, cache.stats().evictions);
+    }
+
+    @Test public void testIndexesByLanguage() throws FileSystemException {
+        final ResultCache<String> cache = new ResultCache<>(2);
+        final BehaviorSubject<String> a = cache.getOrCreate(name("a"));
+        a.onNext("a");
+        cache.update(name("a"), language);
+        assertEquals(1, cache.get(language).size());
+        assertSame(a, cache.get(language).iterator().next());
+
+        cache.getOrCreate(name("b")).onNext("b");
+        cache.getOrCreate(name("c")).onNext("c");
+        assertTrue(cache.get(language).isEmpty());
+    }
+
+    @Test public void testRecordsHitsAndMisses() throws FileSystemException {
+        final ResultCache<String> cache = new ResultCache<>(2);
+        cache.get(name("a"));
+        cache.getOrCreate(name("a"));
+        cache.getOrCreate(name("a"));
+        cache.get(name("a"));
+        cache.putIfAbsent(name("a"), BehaviorSubject.create());
+
+        assertEquals(2, cache.stats().hits);
+        assertEquals(2, cache.stats().misses);
+    }
+
+
+    private static FileName name(String path) throws FileSystemException {
+        return VFS.getManager().resolveFile("ram:///" + path).getName();
+    }
+}
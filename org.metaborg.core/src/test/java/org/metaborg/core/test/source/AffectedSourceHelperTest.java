@@ -0,0 +1,112 @@
+package org.metaborg.core.test.source;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import javax.annotation.Nullable;
+
+import org.junit.Test;
+import org.metaborg.core.source.AffectedSourceHelper;
+import org.metaborg.core.source.ISourceRegion;
+import org.metaborg.core.source.LineIndex;
+import org.metaborg.core.source.SourceRegion;
+
+import com.google.common.base.Strings;
+
+public class AffectedSourceHelperTest {
+    private static final String[] texts = { "", "a", "abc\ndef\nghi", "abc\r\ndef\r\n\r\nghi\r\n", "\n\nab\n\tcd\n",
+        "one line with trailing newline\n", "x\ny\r\nz", "\r\n\r\nabc" };
+
+
+    @Test public void testHighlightsSingleLine() {
+        assertEquals("  def\n   ^^\n",
+            AffectedSourceHelper.affectedSourceText(new SourceRegion(5, 6), "abc\ndef\nghi", "  "));
+    }
+
+    @Test public void testHighlightsMultipleLines() {
+        assertEquals("abc\ndef\n^^^\n",
+            AffectedSourceHelper.affectedSourceText(new SourceRegion(1, 5), "abc\ndef\nghi", ""));
+    }
+
+    @Test public void testNoHighlightOutsideText() {
+        assertNull(AffectedSourceHelper.affectedSourceText(new SourceRegion(20, 25), "abc\ndef\nghi", ""));
+    }
+
+    @Test public void testEqualsFullScan() {
+        for(String text : texts) {
+            final LineIndex lineIndex = new LineIndex(text);
+            for(int startOffset = -2; startOffset <= text.length() + 2; ++startOffset) {
+                for(int endOffset = -2; endOffset <= text.length() + 2; ++endOffset) {
+                    final ISourceRegion region = new SourceRegion(startOffset, endOffset);
+                    final String expected = fullScan(region, text, "  ");
+                    final String message = "Highlight of " + region + " in \"" + text + "\"";
+                    assertEquals(message, expected, AffectedSourceHelper.affectedSourceText(region, text, "  "));
+                    assertEquals(message, expected, AffectedSourceHelper.affectedSourceText(region, lineIndex, "  "));
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Highlights given region by scanning all lines of the text, as done before highlighting through a line index.
+     */
+    private static @Nullable String fullScan(ISourceRegion region, String sourceText, String indentation) {
+        final int startOffset = region.startOffset();
+        final int endOffset = region.endOffset();
+
+        int startRow = -1;
+        int endRow = -1;
+        int startExtend = Integer.MAX_VALUE;
+        int endExtend = 0;
+        int pos = 0;
+        final String[] lines = sourceText.split("\\r?\\n");
+        for(int i = 0; i < lines.length; ++i) {
+            final String line = lines[i];
+            final int length = line.length();
+
+            final int startDist = startOffset - pos;
+            if(startDist >= 0 && startDist <= length) {
+                startExtend = Math.min(startExtend, startDist);
+            }
+
+            final int endDist = endOffset - pos;
+            if(endDist >= 0 && endDist <= length) {
+                endExtend = Math.max(endExtend, endDist + 1);
+            }
+
+            pos += length + 1;
+            if(startRow == -1 && pos >= startOffset) {
+                startRow = i;
+            }
+            if(startRow != -1) {
+                if(pos >= endOffset) {
+                    endRow = i;
+                    break;
+                } else {
+                    startExtend = 0;
+                    endExtend = Math.max(endExtend, length);
+                }
+            }
+        }
+
+        if(endRow == -1 || startExtend == Integer.MAX_VALUE) {
+            return null;
+        }
+
+        final StringBuilder builder = new StringBuilder();
+        for(int i = startRow; i <= endRow; ++i) {
+            builder.append(indentation);
+            builder.append(lines[i].replace('\t', ' '));
+            builder.append('\n');
+        }
+        if(startExtend <= endExtend) {
+            builder.append(indentation);
+            builder.append(Strings.repeat(" ", startExtend));
+            builder.append(Strings.repeat("^", endExtend - startExtend));
+            builder.append('\n');
+        }
+
+        return builder.toString();
+    }
+}
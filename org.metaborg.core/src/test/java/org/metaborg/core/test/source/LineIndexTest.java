@@ -0,0 +1,45 @@
+package org.metaborg.core.test.source;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.metaborg.core.source.LineIndex;
+
+public class LineIndexTest {
+    @Test public void testSplitsLines() {
+        final LineIndex index = new LineIndex("abc\r\n\ndef\n");
+        assertEquals(3, index.lineCount());
+        assertEquals("abc", index.line(0));
+        assertEquals("", index.line(1));
+        assertEquals("def", index.line(2));
+    }
+
+    @Test public void testCountsLineTerminatorsAsOneCharacter() {
+        final LineIndex index = new LineIndex("abc\r\n\ndef\n");
+        assertEquals(0, index.lineStart(0));
+        assertEquals(4, index.lineEnd(0));
+        assertEquals(4, index.lineStart(1));
+        assertEquals(5, index.lineEnd(1));
+        assertEquals(5, index.lineStart(2));
+        assertEquals(9, index.lineEnd(2));
+    }
+
+    @Test public void testFindsFirstLineEndingAtOrAfterOffset() {
+        final LineIndex index = new LineIndex("abc\r\n\ndef\n");
+        assertEquals(0, index.firstLineEndingAtOrAfter(-1));
+        assertEquals(0, index.firstLineEndingAtOrAfter(0));
+        assertEquals(0, index.firstLineEndingAtOrAfter(4));
+        assertEquals(1, index.firstLineEndingAtOrAfter(5));
+        assertEquals(2, index.firstLineEndingAtOrAfter(6));
+        assertEquals(2, index.firstLineEndingAtOrAfter(9));
+        assertEquals(3, index.firstLineEndingAtOrAfter(10));
+    }
+
+    @Test public void testIsIndexOfEqualText() {
+        final LineIndex index = new LineIndex("abc\ndef");
+        assertTrue(index.isIndexOf(new String("abc\ndef")));
+        assertFalse(index.isIndexOf("abc\ndeg"));
+    }
+}
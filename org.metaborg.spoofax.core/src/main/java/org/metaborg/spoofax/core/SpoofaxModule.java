@@ -68,6 +68,7 @@ import org.metaborg.spoofax.core.dynamicclassloading.IDynamicClassLoadingService
 import org.metaborg.spoofax.core.language.LanguageComponentFactory;
 import org.metaborg.spoofax.core.language.LanguageDiscoveryService;
 import org.metaborg.spoofax.core.language.dialect.DialectIdentifier;
+import org.metaborg.spoofax.core.language.dialect.DialectMetaCache;
 import org.metaborg.spoofax.core.language.dialect.DialectProcessor;
 import org.metaborg.spoofax.core.language.dialect.DialectService;
 import org.metaborg.spoofax.core.menu.MenuService;
@@ -328,6 +329,7 @@ public class SpoofaxModule extends MetaborgModule {
         bind(ILanguageDiscoveryService.class).to(LanguageDiscoveryService.class).in(Singleton.class);
 
         bind(IDialectService.class).to(DialectService.class).in(Singleton.class);
+        bind(DialectMetaCache.class).in(Singleton.class);
         bind(IDialectIdentifier.class).to(DialectIdentifier.class).in(Singleton.class);
         bind(IDialectProcessor.class).to(DialectProcessor.class).in(Singleton.class);
     }
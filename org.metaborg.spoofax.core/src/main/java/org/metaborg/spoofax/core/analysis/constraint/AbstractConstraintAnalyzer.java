@@ -30,6 +30,7 @@ import org.metaborg.spoofax.core.analysis.SpoofaxAnalyzeResults;
 import org.metaborg.spoofax.core.context.constraint.IConstraintContext;
 import org.metaborg.spoofax.core.stratego.IStrategoCommon;
 import org.metaborg.spoofax.core.stratego.IStrategoRuntimeService;
+import org.metaborg.spoofax.core.syntax.TermDigest;
 import org.metaborg.spoofax.core.tracing.ISpoofaxTracingService;
 import org.metaborg.spoofax.core.unit.AnalyzeContrib;
 import org.metaborg.spoofax.core.unit.AnalyzeUpdateData;
@@ -57,6 +58,7 @@ import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
 
 import mb.flowspec.terms.B;
 import mb.nabl2.terms.stratego.StrategoTermIndices;
@@ -226,12 +228,11 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
             if(context.contains(resource)) {
                 final IConstraintContext.Entry ctxEntry = context.get(resource);
                 change = build("Cached", ctxEntry.analysis());
-                expect = new CachedUpdate(resource, projectAst.hashCode(), projectAst, ctxEntry.analysis(),
+                expect = new CachedUpdate(resource, TermDigest.digest(projectAst), projectAst, ctxEntry.analysis(),
                         ctxEntry.errors(), ctxEntry.warnings(), ctxEntry.notes(), ctxEntry.exceptions(), context);
-                context.remove(resource);
             } else {
                 change = build("Added", projectAst);
-                expect = new ProjectFull(resource, projectAst.hashCode(), projectAst, context);
+                expect = new ProjectFull(resource, TermDigest.digest(projectAst), projectAst, context);
                 realChange = true;
             }
             expects.put(resource, expect);
@@ -252,46 +253,49 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
             }
         }
 
-        // added and changed files
+        // added and changed files, which keep their entry in the context (and its entry file) until the results are
+        // put, such that unchanged results are not written again
         for(Map.Entry<String, ISpoofaxParseUnit> entry : changed.entrySet()) {
             final String resource = entry.getKey();
             final ISpoofaxParseUnit input = entry.getValue();
             final IStrategoTerm parseAst = input.ast();
-            final int parseHash = parseAst.hashCode();
+            final HashCode parseDigest = input.astDigest();
             final IStrategoTerm change;
             final Expect expect;
             if(context.contains(resource)) {
                 final IConstraintContext.Entry ctxEntry = context.get(resource);
                 final IStrategoTerm analyzedAst = ctxEntry.analyzedAst();
-                if(ctxEntry.parseHash() != parseHash || analyzedAst == null) {
+                if(!ctxEntry.parseDigest().equals(parseDigest) || analyzedAst == null) {
                     change = build("Changed", parseAst, ctxEntry.analysis());
-                    expect = new ChangedFull(resource, parseHash, input, context);
+                    expect = new ChangedFull(resource, parseDigest, input, context);
                     realChange = true;
                 } else {
                     change = build("Cached", ctxEntry.analysis());
-                    expect = new UpdateFull(resource, parseHash, analyzedAst, ctxEntry.analysis(), ctxEntry.errors(),
+                    expect = new UpdateFull(resource, parseDigest, analyzedAst, ctxEntry.analysis(), ctxEntry.errors(),
                             ctxEntry.warnings(), ctxEntry.notes(), ctxEntry.exceptions(), input, context);
                 }
             } else {
                 change = build("Added", parseAst);
-                expect = new ChangedFull(resource, parseHash, input, context);
+                expect = new ChangedFull(resource, parseDigest, input, context);
                 realChange = true;
             }
-            context.remove(resource);
             expects.put(resource, expect);
             changes.add(termFactory.makeTuple(termFactory.makeString(resource), change));
         }
 
-        // cached files
+        // cached files, skipping the project entry and changed files, which already have an expectation
         if(multifile()) {
-            for(Map.Entry<String, IConstraintContext.Entry> entry : context.entrySet()) {
-                final String resource = entry.getKey();
-                if(!changed.containsKey(resource)) {
-                    final IConstraintContext.Entry ctxEntry = entry.getValue();
+            for(String resource : context.keySet()) {
+                if(!expects.containsKey(resource)) {
+                    final IConstraintContext.Entry ctxEntry = context.get(resource);
+                    if(ctxEntry == null) {
+                        // Entry could not be loaded and was removed, its resource is reanalyzed when it changes.
+                        continue;
+                    }
                     final IStrategoTerm analyzedAst = ctxEntry.analyzedAst();
                     final IStrategoTerm analysis = ctxEntry.analysis();
                     final IStrategoTerm change = build("Cached", analysis);
-                    expects.put(resource, new CachedUpdate(resource, ctxEntry.parseHash(), analyzedAst, analysis,
+                    expects.put(resource, new CachedUpdate(resource, ctxEntry.parseDigest(), analyzedAst, analysis,
                             ctxEntry.errors(), ctxEntry.warnings(), ctxEntry.notes(), ctxEntry.exceptions(), context));
                     changes.add(termFactory.makeTuple(termFactory.makeString(resource), change));
                 }
@@ -381,7 +385,7 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
     private abstract class Expect {
 
         protected final String resource;
-        protected final int parseHash;
+        protected final HashCode parseDigest;
         protected final IConstraintContext context;
 
         protected IStrategoTerm errors;
@@ -389,10 +393,10 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
         protected IStrategoTerm notes;
         protected List<String> exceptions;
 
-        protected Expect(String resource, int parseHash, IStrategoTerm errors, IStrategoTerm warnings,
+        protected Expect(String resource, HashCode parseDigest, IStrategoTerm errors, IStrategoTerm warnings,
                 IStrategoTerm notes, List<String> exceptions, IConstraintContext context) {
             this.resource = resource;
-            this.parseHash = parseHash;
+            this.parseDigest = parseDigest;
             this.errors = errors;
             this.warnings = warnings;
             this.notes = notes;
@@ -468,8 +472,8 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
         private IStrategoTerm analyzedAst;
         private IStrategoTerm analysis;
 
-        public ChangedFull(String resource, int parseHash, ISpoofaxParseUnit input, IConstraintContext context) {
-            super(resource, parseHash, null, null, null, null, context);
+        public ChangedFull(String resource, HashCode parseDigest, ISpoofaxParseUnit input, IConstraintContext context) {
+            super(resource, parseDigest, null, null, null, null, context);
             this.input = input;
         }
 
@@ -497,7 +501,7 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
                 Collection<ISpoofaxAnalyzeUnitUpdate> updateResults) {
             if(!input.detached()) {
                 if(analysis != null) {
-                    context.put(resource, parseHash, analyzedAst, analysis, errors, warnings, notes, exceptions);
+                    context.put(resource, parseDigest, analyzedAst, analysis, errors, warnings, notes, exceptions);
                 } else {
                     context.remove(resource);
                 }
@@ -517,10 +521,10 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
         // 2. initialized by constructor, overwritten by accept
         private IStrategoTerm analysis;
 
-        public UpdateFull(String resource, int parseHash, IStrategoTerm analyzedAst, IStrategoTerm analysis,
+        public UpdateFull(String resource, HashCode parseDigest, IStrategoTerm analyzedAst, IStrategoTerm analysis,
                 IStrategoTerm errors, IStrategoTerm warnings, IStrategoTerm notes, List<String> exceptions,
                 ISpoofaxParseUnit input, IConstraintContext context) {
-            super(resource, parseHash, errors, warnings, notes, exceptions, context);
+            super(resource, parseDigest, errors, warnings, notes, exceptions, context);
             this.input = input;
             this.analyzedAst = analyzedAst;
             this.analysis = analysis;
@@ -548,7 +552,7 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
         @Override public void result(Collection<IMessage> messages, Collection<ISpoofaxAnalyzeUnit> fullResults,
                 Collection<ISpoofaxAnalyzeUnitUpdate> updateResults) {
             if(analysis != null) {
-                context.put(resource, parseHash, analyzedAst, analysis, errors, warnings, notes, exceptions);
+                context.put(resource, parseDigest, analyzedAst, analysis, errors, warnings, notes, exceptions);
             } else {
                 context.remove(resource);
             }
@@ -565,11 +569,12 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
         private IStrategoTerm analyzedAst;
         // 2. initialized by constructor, overwritten by accept
         private IStrategoTerm analysis;
+        private boolean accepted = false;
 
-        private CachedUpdate(String resource, int parseHash, IStrategoTerm analyzedAst, IStrategoTerm analysis,
+        private CachedUpdate(String resource, HashCode parseDigest, IStrategoTerm analyzedAst, IStrategoTerm analysis,
                 IStrategoTerm errors, IStrategoTerm warnings, IStrategoTerm notes, List<String> exceptions,
                 IConstraintContext context) {
-            super(resource, parseHash, errors, warnings, notes, exceptions, context);
+            super(resource, parseDigest, errors, warnings, notes, exceptions, context);
             this.analyzedAst = analyzedAst;
             this.analysis = analysis;
         }
@@ -579,6 +584,7 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
         }
 
         @Override public void accept(IStrategoTerm result) {
+            accepted = true;
             final List<IStrategoTerm> results;
             if((results = match(result, "Update", 4)) != null) {
                 analysis = results.get(0);
@@ -595,10 +601,11 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
 
         @Override public void result(Collection<IMessage> messages, Collection<ISpoofaxAnalyzeUnit> fullResults,
                 Collection<ISpoofaxAnalyzeUnitUpdate> updateResults) {
-            if(analysis != null) {
-                context.put(resource, parseHash, analyzedAst, analysis, errors, warnings, notes, exceptions);
-            } else {
+            // Entries without a result are unchanged, and are kept in the context as is.
+            if(analysis == null) {
                 context.remove(resource);
+            } else if(accepted) {
+                context.put(resource, parseDigest, analyzedAst, analysis, errors, warnings, notes, exceptions);
             }
             updateResults.add(unitService.analyzeUnitUpdate(resource(), new AnalyzeUpdateData(messages), context));
         }
@@ -612,8 +619,9 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
         // 2. initialized by accept
         private IStrategoTerm analysis;
 
-        public ProjectFull(String resource, int parseHash, IStrategoTerm analyzedAst, IConstraintContext context) {
-            super(resource, parseHash, null, null, null, null, context);
+        public ProjectFull(String resource, HashCode parseDigest, IStrategoTerm analyzedAst,
+                IConstraintContext context) {
+            super(resource, parseDigest, null, null, null, null, context);
             this.analyzedAst = analyzedAst;
         }
 
@@ -639,7 +647,7 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
         @Override public void result(Collection<IMessage> messages, Collection<ISpoofaxAnalyzeUnit> fullResults,
                 Collection<ISpoofaxAnalyzeUnitUpdate> updateResults) {
             if(analysis != null) {
-                context.put(resource, parseHash, analyzedAst, analysis, errors, warnings, notes, exceptions);
+                context.put(resource, parseDigest, analyzedAst, analysis, errors, warnings, notes, exceptions);
             } else {
                 context.remove(resource);
             }
@@ -5,14 +5,17 @@ import java.io.NotSerializableException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.commons.io.input.ClassLoaderObjectInputStream;
+import org.apache.commons.vfs2.AllFileSelector;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
 import org.metaborg.core.MetaborgRuntimeException;
@@ -30,7 +33,12 @@ import org.metaborg.util.time.Timer;
 import org.spoofax.interpreter.terms.IStrategoTerm;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
 import com.google.inject.Injector;
 
 public class ConstraintContext implements IConstraintContext {
@@ -64,29 +72,39 @@ public class ConstraintContext implements IConstraintContext {
     }
 
     @Override public boolean contains(FileObject resource) {
-        return state.entries.containsKey(resourceKey(resource));
+        return state.contains(resourceKey(resource));
     }
 
-    @Override public boolean put(FileObject resource, int parseHash, IStrategoTerm analyzedAst, IStrategoTerm analysis,
-            IStrategoTerm errors, IStrategoTerm warnings, IStrategoTerm notes, List<String> exceptions) {
-        return state.entries.put(resourceKey(resource),
-                new Entry(parseHash, analyzedAst, analysis, errors, warnings, notes, exceptions)) != null;
+    @Override public boolean put(FileObject resource, HashCode parseDigest, IStrategoTerm analyzedAst,
+            IStrategoTerm analysis, IStrategoTerm errors, IStrategoTerm warnings, IStrategoTerm notes,
+            List<String> exceptions) {
+        return state.put(resourceKey(resource),
+                new Entry(parseDigest, analyzedAst, analysis, errors, warnings, notes, exceptions));
     }
 
     @Override public IConstraintContext.Entry get(FileObject resource) {
-        return state.entries.get(resourceKey(resource));
+        return loadEntry(resourceKey(resource));
     }
 
     @Override public boolean remove(FileObject resource) {
-        return state.entries.remove(resourceKey(resource)) != null;
+        return state.remove(resourceKey(resource));
+    }
+
+    @Override public Set<String> keySet() {
+        return state.keys();
     }
 
     @Override public Set<Map.Entry<String, IConstraintContext.Entry>> entrySet() {
-        return state.entries.entrySet();
+        synchronized(state) {
+            for(String key : Lists.newArrayList(state.files.keySet())) {
+                loadEntry(key);
+            }
+            return ImmutableMap.copyOf(state.entries).entrySet();
+        }
     }
 
     @Override public void clear() {
-        state.entries.clear();
+        state.clear();
     }
 
     // ----------------------------------------------------------
@@ -159,6 +177,8 @@ public class ConstraintContext implements IConstraintContext {
             }
             final FileObject contextFile = contextFile();
             contextFile.delete();
+            final FileObject storeDir = storeDir();
+            storeDir.delete(new AllFileSelector());
         }
     }
 
@@ -195,14 +215,20 @@ public class ConstraintContext implements IConstraintContext {
 
     private State loadOrInitState() {
         try {
+            // Remove context files written in the old, single file format.
             final FileObject contextFile = contextFile();
+            if(contextFile.exists()) {
+                logger.info("Removing context {} in old format, all files will be reanalyzed", contextFile);
+                deleteContextFile(contextFile);
+            }
+
+            final FileObject indexFile = indexFile();
             try {
-                if(contextFile.exists()) {
-                    return readContext(contextFile);
+                if(indexFile.exists()) {
+                    return readIndex(indexFile);
                 }
-            } catch(IOException | ClassNotFoundException e) {
-                logger.warn("Load context {} failed: {}", contextFile, e.getMessage());
-                deleteContextFile(contextFile);
+            } catch(IOException e) {
+                logger.warn("Load context {} failed: {}", indexFile, e.getMessage());
             }
         } catch(IOException e) {
             logger.warn("Failed to locate context: {}", e.getMessage());
@@ -210,8 +236,15 @@ public class ConstraintContext implements IConstraintContext {
         return initState();
     }
 
+    /**
+     * Creates an empty state. Entry files of a previous state are deleted when the state is first persisted, since the
+     * new index does not refer to them. Temporary contexts share the location of their context and are never persisted,
+     * so the store cannot be deleted here.
+     */
     private State initState() {
-        return new State();
+        final State state = new State(new Index());
+        state.replacesStore = true;
+        return state;
     }
 
     private FileObject contextFile() throws FileSystemException {
@@ -219,49 +252,134 @@ public class ConstraintContext implements IConstraintContext {
         return paths.targetDir().resolveFile("analysis").resolveFile(persistentIdentifier).resolveFile("constraint");
     }
 
-    private State readContext(FileObject file) throws IOException, ClassNotFoundException, ClassCastException {
-        try(ObjectInputStream ois =
-                new ClassLoaderObjectInputStream(getClass().getClassLoader(), file.getContent().getInputStream())) {
-            State fileState;
-            try {
-                fileState = (State) ois.readObject();
-            } catch(NotSerializableException ex) {
-                logger.warn("Context could not be read: {}", ex.getMessage());
-                fileState = initState();
-            } catch(Exception ex) {
-                final String msg = logger.format("Context file could not be read: {}", ex.getMessage());
-                throw new IOException(msg);
+    private FileObject storeDir() throws FileSystemException {
+        final CommonPaths paths = new CommonPaths(identifier.location);
+        return paths.targetDir().resolveFile("analysis").resolveFile(persistentIdentifier)
+                .resolveFile("constraint-store");
+    }
+
+    private FileObject indexFile() throws FileSystemException {
+        return storeDir().resolveFile("index");
+    }
+
+    private FileObject entryFile(String fileName) throws FileSystemException {
+        return storeDir().resolveFile(fileName);
+    }
+
+    private State readIndex(FileObject file) throws IOException {
+        final Object index = readObject(file);
+        if(!(index instanceof Index)) {
+            throw new IOException("Context index file is empty or invalid.");
+        }
+        return new State((Index) index);
+    }
+
+    /**
+     * Loads the entry for given key from its entry file, or returns null when there is no entry for the key. Entries
+     * that cannot be read are removed, such that their resource is reanalyzed.
+     */
+    private IConstraintContext.Entry loadEntry(String key) {
+        synchronized(state) {
+            final IConstraintContext.Entry loadedEntry = state.entries.get(key);
+            if(loadedEntry != null) {
+                return loadedEntry;
             }
-            if(fileState == null) {
-                throw new IOException("Context file is empty.");
+            final String fileName = state.files.get(key);
+            if(fileName == null) {
+                return null;
             }
-            return fileState;
+            try {
+                final Object entry = readObject(entryFile(fileName));
+                if(entry instanceof Entry) {
+                    state.entries.put(key, (Entry) entry);
+                    return (Entry) entry;
+                }
+                logger.warn("Context entry for {} is empty or invalid, removing it", key);
+            } catch(IOException e) {
+                logger.warn("Load context entry for {} failed: {}", key, e.getMessage());
+            }
+            state.remove(key);
+            return null;
+        }
+    }
+
+    private Object readObject(FileObject file) throws IOException {
+        try(ObjectInputStream ois =
+                new ClassLoaderObjectInputStream(getClass().getClassLoader(), file.getContent().getInputStream())) {
+            return ois.readObject();
+        } catch(IOException ex) {
+            throw ex;
+        } catch(Exception ex) {
+            final String msg = logger.format("Context file could not be read: {}", ex.getMessage());
+            throw new IOException(msg, ex);
         }
     }
 
     private void persistState() {
-        try {
-            final FileObject contextFile = contextFile();
+        synchronized(state) {
             try {
-                writeContext(contextFile);
+                writeState();
             } catch(IOException e) {
-                logger.warn("Store context {} failed: {}", contextFile, e.getMessage());
+                logger.warn("Store context {} failed: {}", identifier, e.getMessage());
             }
-        } catch(IOException e) {
-            logger.warn("Failed to locate context: {}", e.getMessage());
         }
     }
 
-    private void writeContext(FileObject file) throws IOException {
-        Timer timer = new Timer(true);
+    /**
+     * Writes entries that changed since the last persist to their entry files, deletes entry files of removed entries,
+     * and writes the index if entries were added or removed.
+     */
+    private void writeState() throws IOException {
+        if(state.replacesStore) {
+            deleteStore();
+            state.obsoleteFiles.clear();
+            state.indexDirty = true;
+            state.replacesStore = false;
+        }
+        if(state.dirty.isEmpty() && state.obsoleteFiles.isEmpty() && !state.indexDirty) {
+            return;
+        }
+        final Timer timer = new Timer(true);
+        final int written = state.dirty.size();
+        for(String key : state.dirty) {
+            final Entry entry = (Entry) state.entries.get(key);
+            String fileName = state.files.get(key);
+            if(fileName == null) {
+                fileName = state.index.newFileName();
+                state.files.put(key, fileName);
+                state.indexDirty = true;
+            }
+            writeObject(entryFile(fileName), entry);
+        }
+        state.dirty.clear();
+
+        for(String fileName : state.obsoleteFiles) {
+            deleteContextFile(entryFile(fileName));
+        }
+        state.obsoleteFiles.clear();
+
+        if(state.indexDirty) {
+            writeObject(indexFile(), state.index);
+            state.indexDirty = false;
+        }
+        logger.debug("Context written ({} entries) in {} s", written, timer.stop() / 1_000_000_000d);
+    }
+
+    private void writeObject(FileObject file, Serializable object) throws IOException {
         try(ObjectOutputStream oos = new ObjectOutputStream(file.getContent().getOutputStream())) {
-            oos.writeObject(state);
+            oos.writeObject(object);
         } catch(NotSerializableException ex) {
             logger.warn("Constraint context persistence not serializable: {}", ex.getMessage());
         } catch(Exception ex) {
             throw new IOException("Context file could not be written.", ex);
-        } finally {
-            logger.debug("Context written in {} s", timer.stop() / 1_000_000_000d);
+        }
+    }
+
+    private void deleteStore() {
+        try {
+            storeDir().delete(new AllFileSelector());
+        } catch(FileSystemException e) {
+            logger.warn("Deleting context store failed: {}", e.getMessage());
         }
     }
 
@@ -297,23 +415,92 @@ public class ConstraintContext implements IConstraintContext {
         return String.format("Constraint context for %s, %s", identifier.location, identifier.language);
     }
 
-    private static class State implements Serializable {
+    /**
+     * Persisted index of a context, mapping resource keys to the files their entries are stored in.
+     */
+    private static class Index implements Serializable {
 
         private static final long serialVersionUID = 1L;
 
-        public final Map<String, IConstraintContext.Entry> entries;
+        public final Map<String, String> files = Maps.newHashMap();
+        private long nextFile = 0;
+
+        public String newFileName() {
+            return Long.toString(nextFile++) + ".entry";
+        }
+
+    }
+
+    /**
+     * In-memory state of a context. Entries are loaded from their entry files on first access, and tracked as dirty
+     * when changed such that only those are written on persist. Entries can be loaded and persisted while holding the
+     * read lock of the context, so all access is synchronized on the state.
+     */
+    private static class State {
+
+        public final Index index;
+        public final Map<String, String> files;
+        public final Map<String, IConstraintContext.Entry> entries = Maps.newHashMap();
+        public final Set<String> dirty = Sets.newHashSet();
+        public final Set<String> obsoleteFiles = Sets.newHashSet();
+        public boolean indexDirty = false;
+        public boolean replacesStore = false;
+
+        public State(Index index) {
+            this.index = index;
+            this.files = index.files;
+        }
+
+        public synchronized boolean contains(String key) {
+            return entries.containsKey(key) || files.containsKey(key);
+        }
+
+        public synchronized Set<String> keys() {
+            return ImmutableSet.<String>builder().addAll(files.keySet()).addAll(entries.keySet()).build();
+        }
+
+        /**
+         * Puts given entry, only marking it dirty when it differs from the stored entry. Entries that have not been
+         * loaded yet are assumed to differ.
+         */
+        public synchronized boolean put(String key, IConstraintContext.Entry entry) {
+            final boolean existed = contains(key);
+            final IConstraintContext.Entry previous = entries.put(key, entry);
+            if(previous == null || !((Entry) previous).persistedEquals((Entry) entry)) {
+                dirty.add(key);
+            }
+            return existed;
+        }
 
-        public State() {
-            this.entries = Maps.newHashMap();
+        public synchronized boolean remove(String key) {
+            final boolean existed = entries.remove(key) != null;
+            dirty.remove(key);
+            final String fileName = files.remove(key);
+            if(fileName != null) {
+                obsoleteFiles.add(fileName);
+                indexDirty = true;
+                return true;
+            }
+            return existed;
+        }
+
+        public synchronized void clear() {
+            entries.clear();
+            dirty.clear();
+            if(!files.isEmpty()) {
+                obsoleteFiles.addAll(files.values());
+                files.clear();
+                indexDirty = true;
+            }
         }
 
     }
 
     private static class Entry implements IConstraintContext.Entry, Serializable {
 
-        private static final long serialVersionUID = 1L;
+        private static final long serialVersionUID = 2L;
 
-        public final int parseHash;
+        private final byte[] parseDigest;
         public transient IStrategoTerm analyzedAst;
         public final IStrategoTerm analysis;
         public final IStrategoTerm errors;
@@ -321,9 +508,9 @@ public class ConstraintContext implements IConstraintContext {
         public final IStrategoTerm notes;
         public final List<String> exceptions;
 
-        Entry(int parseHash, IStrategoTerm analyzedAst, IStrategoTerm analysis, IStrategoTerm errors,
+        Entry(HashCode parseDigest, IStrategoTerm analyzedAst, IStrategoTerm analysis, IStrategoTerm errors,
                 IStrategoTerm warnings, IStrategoTerm notes, List<String> exceptions) {
-            this.parseHash = parseHash;
+            this.parseDigest = parseDigest.asBytes();
             this.analyzedAst = analyzedAst;
             this.analysis = analysis;
             this.errors = errors;
@@ -332,8 +519,8 @@ public class ConstraintContext implements IConstraintContext {
             this.exceptions = ImmutableList.copyOf(exceptions);
         }
 
-        @Override public int parseHash() {
-            return parseHash;
+        @Override public HashCode parseDigest() {
+            return HashCode.fromBytes(parseDigest);
         }
 
         @Override public IStrategoTerm analyzedAst() {
@@ -360,6 +547,16 @@ public class ConstraintContext implements IConstraintContext {
             return exceptions;
         }
 
+        /**
+         * @return True if given entry would be persisted the same as this entry. The analyzed AST is not persisted, and
+         *         therefore not compared.
+         */
+        public boolean persistedEquals(Entry other) {
+            return Arrays.equals(parseDigest, other.parseDigest) && Objects.equals(analysis, other.analysis)
+                && Objects.equals(errors, other.errors) && Objects.equals(warnings, other.warnings)
+                && Objects.equals(notes, other.notes) && Objects.equals(exceptions, other.exceptions);
+        }
+
     }
 
 }
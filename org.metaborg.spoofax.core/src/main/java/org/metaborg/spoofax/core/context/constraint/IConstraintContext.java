@@ -1,5 +1,6 @@
 package org.metaborg.spoofax.core.context.constraint;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -8,6 +9,8 @@ import org.apache.commons.vfs2.FileObject;
 import org.metaborg.core.context.IContextInternal;
 import org.spoofax.interpreter.terms.IStrategoTerm;
 
+import com.google.common.hash.HashCode;
+
 public interface IConstraintContext extends IContextInternal {
 
     default String resourceKey(String resource) {
@@ -26,12 +29,12 @@ public interface IConstraintContext extends IContextInternal {
     boolean contains(FileObject resource);
 
 
-    default boolean put(String resource, int parseHash, IStrategoTerm analyzedAst, IStrategoTerm analysis,
+    default boolean put(String resource, HashCode parseDigest, IStrategoTerm analyzedAst, IStrategoTerm analysis,
             IStrategoTerm errors, IStrategoTerm warnings, IStrategoTerm notes, List<String> exceptions) {
-        return put(keyResource(resource), parseHash, analyzedAst, analysis, errors, warnings, notes, exceptions);
+        return put(keyResource(resource), parseDigest, analyzedAst, analysis, errors, warnings, notes, exceptions);
     }
 
-    boolean put(FileObject resource, int parseHash, IStrategoTerm analyzedAst, IStrategoTerm analysis,
+    boolean put(FileObject resource, HashCode parseDigest, IStrategoTerm analyzedAst, IStrategoTerm analysis,
             IStrategoTerm errors, IStrategoTerm warnings, IStrategoTerm notes, List<String> exceptions);
 
 
@@ -49,6 +52,20 @@ public interface IConstraintContext extends IContextInternal {
     boolean remove(FileObject resource);
 
 
+    /**
+     * @return Keys of all entries, without loading the entries.
+     */
+    default Set<String> keySet() {
+        final Set<String> keys = new HashSet<>();
+        for(Map.Entry<String, Entry> entry : entrySet()) {
+            keys.add(entry.getKey());
+        }
+        return keys;
+    }
+
+    /**
+     * @return Snapshot of all entries, loading entries that have not been loaded yet.
+     */
     Set<Map.Entry<String, Entry>> entrySet();
 
     void clear();
@@ -56,7 +73,10 @@ public interface IConstraintContext extends IContextInternal {
 
     interface Entry {
 
-        int parseHash();
+        /**
+         * @return Structural digest of the parsed AST that was analyzed.
+         */
+        HashCode parseDigest();
 
         IStrategoTerm analyzedAst();
 
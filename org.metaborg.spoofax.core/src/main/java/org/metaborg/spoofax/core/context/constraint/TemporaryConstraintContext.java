@@ -14,6 +14,7 @@ import org.metaborg.util.concurrent.IClosableLock;
 import org.metaborg.util.concurrent.NullClosableLock;
 import org.spoofax.interpreter.terms.IStrategoTerm;
 
+import com.google.common.hash.HashCode;
 import com.google.inject.Injector;
 
 public class TemporaryConstraintContext implements IConstraintContext, ITemporaryContextInternal {
@@ -39,9 +40,10 @@ public class TemporaryConstraintContext implements IConstraintContext, ITemporar
         return context.contains(resource);
     }
 
-    @Override public boolean put(FileObject resource, int contentHash, IStrategoTerm analyzedAst, IStrategoTerm value,
-            IStrategoTerm errors, IStrategoTerm warnings, IStrategoTerm notes, List<String> exceptions) {
-        return context.put(resource, contentHash, analyzedAst, value, errors, warnings, notes, exceptions);
+    @Override public boolean put(FileObject resource, HashCode parseDigest, IStrategoTerm analyzedAst,
+            IStrategoTerm value, IStrategoTerm errors, IStrategoTerm warnings, IStrategoTerm notes,
+            List<String> exceptions) {
+        return context.put(resource, parseDigest, analyzedAst, value, errors, warnings, notes, exceptions);
     }
 
     @Override public Entry get(FileObject resource) {
@@ -52,6 +54,10 @@ public class TemporaryConstraintContext implements IConstraintContext, ITemporar
         return context.remove(resource);
     }
 
+    @Override public Set<String> keySet() {
+        return context.keySet();
+    }
+
     @Override public Set<Map.Entry<String, Entry>> entrySet() {
         return context.entrySet();
     }
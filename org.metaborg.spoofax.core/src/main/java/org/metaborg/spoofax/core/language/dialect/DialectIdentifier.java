@@ -17,28 +17,23 @@ import org.metaborg.core.language.dialect.IdentifiedDialect;
 import org.metaborg.spoofax.core.SpoofaxConstants;
 import org.metaborg.util.log.ILogger;
 import org.metaborg.util.log.LoggerUtils;
-import org.spoofax.interpreter.terms.IStrategoAppl;
-import org.spoofax.interpreter.terms.IStrategoTerm;
-import org.spoofax.interpreter.terms.ITermFactory;
 import org.spoofax.terms.ParseError;
-import org.spoofax.terms.io.binary.TermReader;
 
 import com.google.inject.Inject;
-import org.spoofax.terms.util.TermUtils;
 
 public class DialectIdentifier implements IDialectIdentifier {
     private static final ILogger logger = LoggerUtils.logger(DialectIdentifier.class);
 
     private final ILanguageService languageService;
     private final IDialectService dialectService;
-    private final ITermFactory termFactory;
+    private final DialectMetaCache metaCache;
 
 
     @Inject public DialectIdentifier(ILanguageService languageService, IDialectService dialectService,
-        ITermFactory termFactory) {
+        DialectMetaCache metaCache) {
         this.languageService = languageService;
         this.dialectService = dialectService;
-        this.termFactory = termFactory;
+        this.metaCache = metaCache;
     }
 
 
@@ -62,13 +57,7 @@ public class DialectIdentifier implements IDialectIdentifier {
         }
 
         try {
-            final FileObject metaResource = metaResource(resource);
-            if(metaResource == null) {
-                return null;
-            }
-            final TermReader termReader = new TermReader(termFactory);
-            final IStrategoTerm term = termReader.parseFromStream(metaResource.getContent().getInputStream());
-            final String name = getSyntaxName(term.getSubterm(0));
+            final String name = metaCache.syntaxName(resource);
             if(name == null) {
                 return null;
             }
@@ -112,14 +101,4 @@ public class DialectIdentifier implements IDialectIdentifier {
             return null;
         }
     }
-
-    private static String getSyntaxName(IStrategoTerm entries) {
-        for(IStrategoTerm entry : entries.getAllSubterms()) {
-            final String cons = ((IStrategoAppl) entry).getConstructor().getName();
-            if(cons.equals("Syntax")) {
-                return TermUtils.toJavaStringAt(entry, 0);
-            }
-        }
-        return null;
-    }
 }
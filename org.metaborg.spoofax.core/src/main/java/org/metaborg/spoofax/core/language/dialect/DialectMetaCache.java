@@ -0,0 +1,154 @@
+package org.metaborg.spoofax.core.language.dialect;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.annotation.Nullable;
+
+import org.apache.commons.vfs2.FileContent;
+import org.apache.commons.vfs2.FileName;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.spoofax.interpreter.terms.IStrategoAppl;
+import org.spoofax.interpreter.terms.IStrategoTerm;
+import org.spoofax.interpreter.terms.ITermFactory;
+import org.spoofax.terms.io.binary.TermReader;
+import org.spoofax.terms.util.TermUtils;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.inject.Inject;
+
+/**
+ * Caches the .meta files of resources, and the dialect names read from them. Whether a resource has a .meta file is
+ * cached until the directory of the resource changes, which happens when files are created or deleted in it. Dialect
+ * names are cached until the modification time or size of the .meta file changes. Identifying the dialect of
+ * unchanged files therefore does not read or parse their .meta files again.
+ */
+public class DialectMetaCache {
+    private static final long maxEntries = 65536;
+    private static final long unknown = Long.MIN_VALUE;
+
+
+    private static class Entry {
+        public final long directoryModified;
+        public final @Nullable FileObject metaResource;
+        public volatile @Nullable Syntax syntax;
+
+
+        public Entry(long directoryModified, @Nullable FileObject metaResource) {
+            this.directoryModified = directoryModified;
+            this.metaResource = metaResource;
+        }
+    }
+
+    private static class Syntax {
+        public final long modified;
+        public final long size;
+        public final @Nullable String name;
+
+
+        public Syntax(long modified, long size, @Nullable String name) {
+            this.modified = modified;
+            this.size = size;
+            this.name = name;
+        }
+    }
+
+
+    private final ITermFactory termFactory;
+
+    private final Cache<FileName, Entry> entries = CacheBuilder.newBuilder().maximumSize(maxEntries).build();
+
+
+    @Inject public DialectMetaCache(ITermFactory termFactory) {
+        this.termFactory = termFactory;
+    }
+
+
+    /**
+     * Gets the .meta file of given resource.
+     *
+     * @return .meta file, or null if the resource does not have a .meta file.
+     */
+    public @Nullable FileObject metaResource(FileObject resource) {
+        return entry(resource).metaResource;
+    }
+
+    /**
+     * Gets the name of the dialect that the .meta file of given resource refers to.
+     *
+     * @return Name of the dialect, or null if the resource does not have a .meta file, or if its .meta file does not
+     *         refer to a dialect.
+     * @throws IOException
+     *             When reading the .meta file fails.
+     */
+    public @Nullable String syntaxName(FileObject resource) throws IOException {
+        final Entry entry = entry(resource);
+        final FileObject metaResource = entry.metaResource;
+        if(metaResource == null) {
+            return null;
+        }
+
+        final FileContent content = metaResource.getContent();
+        final long modified = content.getLastModifiedTime();
+        final long size = content.getSize();
+        final @Nullable Syntax syntax = entry.syntax;
+        if(syntax != null && syntax.modified == modified && syntax.size == size) {
+            return syntax.name;
+        }
+
+        final IStrategoTerm term;
+        try(InputStream stream = content.getInputStream()) {
+            term = new TermReader(termFactory).parseFromStream(stream);
+        }
+        final String name = getSyntaxName(term.getSubterm(0));
+        entry.syntax = new Syntax(modified, size, name);
+        return name;
+    }
+
+    /**
+     * Removes all cached .meta files and dialect names.
+     */
+    public void clear() {
+        entries.invalidateAll();
+    }
+
+
+    private Entry entry(FileObject resource) {
+        final FileName name = resource.getName();
+        final long directoryModified = directoryModified(resource);
+        final @Nullable Entry cached = entries.getIfPresent(name);
+        if(cached != null && directoryModified != unknown && cached.directoryModified == directoryModified) {
+            return cached;
+        }
+
+        final Entry entry = new Entry(directoryModified, DialectIdentifier.metaResource(resource));
+        if(directoryModified != unknown) {
+            entries.put(name, entry);
+        }
+        return entry;
+    }
+
+    private static long directoryModified(FileObject resource) {
+        try {
+            final FileObject directory = resource.getParent();
+            if(directory == null) {
+                return unknown;
+            }
+            return directory.getContent().getLastModifiedTime();
+        } catch(FileSystemException e) {
+            return unknown;
+        }
+    }
+
+    private static @Nullable String getSyntaxName(IStrategoTerm entries) {
+        for(IStrategoTerm entry : entries.getAllSubterms()) {
+            final String cons = ((IStrategoAppl) entry).getConstructor().getName();
+            if(cons.equals("Syntax")) {
+                return TermUtils.toJavaStringAt(entry, 0);
+            }
+        }
+        return null;
+    }
+}
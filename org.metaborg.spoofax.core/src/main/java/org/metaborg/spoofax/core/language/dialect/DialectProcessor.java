@@ -30,13 +30,16 @@ public class DialectProcessor implements IDialectProcessor {
 
     private final ILanguageService languageService;
     private final IDialectService dialectService;
+    private final DialectMetaCache metaCache;
 
     private final FileSelector selector;
 
 
-    @Inject public DialectProcessor(ILanguageService languageService, IDialectService dialectService) {
+    @Inject public DialectProcessor(ILanguageService languageService, IDialectService dialectService,
+        DialectMetaCache metaCache) {
         this.languageService = languageService;
         this.dialectService = dialectService;
+        this.metaCache = metaCache;
 
         this.selector = FileSelectorUtils.and(new ExtensionFileSelector("tbl"), new SpoofaxIgnoresSelector());
     }
@@ -123,6 +126,8 @@ public class DialectProcessor implements IDialectProcessor {
     }
 
     @Override public void update(LanguageImplChange change) {
+        // Cached .meta files and dialect names may be stale after languages are added, reloaded, or removed.
+        metaCache.clear();
         switch(change.kind) {
             case Add:
                 break;
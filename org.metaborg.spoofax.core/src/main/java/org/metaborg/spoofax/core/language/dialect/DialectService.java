@@ -49,6 +49,7 @@ public class DialectService implements IDialectService {
     private static final ILogger logger = LoggerUtils.logger(DialectService.class);
 
     private final ILanguageService languageService;
+    private final DialectMetaCache metaCache;
 
     // private final Class<SyntaxFacet> syntaxFacetClass = SyntaxFacet.class;
     // private final Class<IdentificationFacet> identificationFacetClass = IdentificationFacet.class;
@@ -59,8 +60,9 @@ public class DialectService implements IDialectService {
     private final Multimap<ILanguageImpl, ILanguageImpl> baseLanguageToDialects = HashMultimap.create();
 
 
-    @Inject public DialectService(ILanguageService languageService) {
+    @Inject public DialectService(ILanguageService languageService, DialectMetaCache metaCache) {
         this.languageService = languageService;
+        this.metaCache = metaCache;
     }
 
 
@@ -223,7 +225,8 @@ public class DialectService implements IDialectService {
 
         for(IFacet facet : base.facets()) {
             if(facet instanceof IdentificationFacet && replaceIdentification) {
-                creationConfig.addFacet(new IdentificationFacet(new MetaFileIdentifier((IdentificationFacet) facet)));
+                final IdentificationFacet identification = (IdentificationFacet) facet;
+                creationConfig.addFacet(new IdentificationFacet(new MetaFileIdentifier(identification, metaCache)));
             } else if(facet instanceof SyntaxFacet || facet instanceof ResourceExtensionFacet) {
                 // Ignore
             } else {
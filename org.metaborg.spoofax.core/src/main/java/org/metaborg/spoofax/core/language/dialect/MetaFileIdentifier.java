@@ -7,14 +7,16 @@ import org.metaborg.core.language.IdentificationFacet;
 
 public class MetaFileIdentifier implements Predicate<FileObject> {
     private final IdentificationFacet identification;
+    private final DialectMetaCache metaCache;
 
-    public MetaFileIdentifier(IdentificationFacet identification) {
+    public MetaFileIdentifier(IdentificationFacet identification, DialectMetaCache metaCache) {
         this.identification = identification;
+        this.metaCache = metaCache;
     }
 
 
     @Override public boolean test(FileObject resource) {
-        if(DialectIdentifier.metaResource(resource) != null) {
+        if(metaCache.metaResource(resource) != null) {
             return identification.identify(resource);
         }
         return false;
@@ -24,6 +24,7 @@ import org.metaborg.core.source.ISourceLocation;
 import org.metaborg.core.source.ISourceRegion;
 import org.metaborg.spoofax.core.stratego.IStrategoCommon;
 import org.metaborg.spoofax.core.stratego.IStrategoRuntimeService;
+import org.metaborg.spoofax.core.stratego.PooledStrategoRuntime;
 import org.metaborg.spoofax.core.tracing.ISpoofaxTracingService;
 import org.metaborg.spoofax.core.unit.ISpoofaxAnalyzeUnit;
 import org.metaborg.spoofax.core.unit.ISpoofaxParseUnit;
@@ -89,13 +90,10 @@ public class OutlineService implements ISpoofaxOutlineService {
         final ILanguageComponent contributor = facetContrib.contributor;
         final String strategy = facet.strategyName;
 
-        try {
-            final HybridInterpreter interpreter;
-            if(context == null) {
-                interpreter = strategoRuntimeService.runtime(contributor, source);
-            } else {
-                interpreter = strategoRuntimeService.runtime(contributor, context);
-            }
+        try(PooledStrategoRuntime runtime = context == null
+            ? strategoRuntimeService.pooledRuntime(contributor, source)
+            : strategoRuntimeService.pooledRuntime(contributor, context)) {
+            final HybridInterpreter interpreter = runtime.get();
             final IStrategoTerm input = common.builderInputTerm(result.ast(), source, source);
             final IStrategoTerm outlineTerm = common.invoke(interpreter, input, strategy);
             if(outlineTerm == null) {
@@ -122,8 +120,8 @@ public class OutlineService implements ISpoofaxOutlineService {
         final ILanguageComponent contributor = facetContrib.contributor;
         final String strategy = facet.strategyName;
 
-        try {
-            final HybridInterpreter interpreter = strategoRuntimeService.runtime(contributor, context);
+        try(PooledStrategoRuntime runtime = strategoRuntimeService.pooledRuntime(contributor, context)) {
+            final HybridInterpreter interpreter = runtime.get();
             final IStrategoTerm input = common.builderInputTerm(result.ast(), source, context.location());
             final IStrategoTerm outlineTerm = common.invoke(interpreter, input, strategy);
             if(outlineTerm == null) {
@@ -1,5 +1,6 @@
 package org.metaborg.spoofax.core.processing.analyze;
 
+import org.metaborg.core.processing.ResultCacheConfig;
 import org.metaborg.core.processing.analyze.AnalysisResultProcessor;
 import org.metaborg.spoofax.core.analysis.ISpoofaxAnalysisService;
 import org.metaborg.spoofax.core.processing.parse.ISpoofaxParseResultRequester;
@@ -17,7 +18,7 @@ public class SpoofaxAnalysisResultProcessor extends
     AnalysisResultProcessor<ISpoofaxInputUnit, ISpoofaxParseUnit, ISpoofaxAnalyzeUnit, ISpoofaxAnalyzeUnitUpdate>
     implements ISpoofaxAnalysisResultProcessor {
     @Inject public SpoofaxAnalysisResultProcessor(ISpoofaxAnalysisService analysisService,
-        ISpoofaxParseResultRequester parseResultRequester) {
-        super(analysisService, parseResultRequester);
+        ISpoofaxParseResultRequester parseResultRequester, ResultCacheConfig cacheConfig) {
+        super(analysisService, parseResultRequester, cacheConfig);
     }
 }
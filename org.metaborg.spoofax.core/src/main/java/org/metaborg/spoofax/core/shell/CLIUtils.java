@@ -221,9 +221,7 @@ public class CLIUtils {
     public void printMessages(OutputStream os, Iterable<IMessage> messages) {
         final IMessagePrinter printer =
                 new WithLocationStreamMessagePrinter(spoofax.sourceTextService, spoofax.projectService, os);
-        for(IMessage message : messages) {
-            printer.print(message, false);
-        }
+        printer.print(messages, false);
     }
 
 }
\ No newline at end of file
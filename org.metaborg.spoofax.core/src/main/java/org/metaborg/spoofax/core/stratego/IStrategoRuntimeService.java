@@ -40,8 +40,48 @@ public interface IStrategoRuntimeService extends ILanguageCache {
     HybridInterpreter runtime(ILanguageComponent component, FileObject location)
         throws MetaborgException;
 
+    /**
+     * Borrows a Stratego runtime for given component from a pool, initialized with given context. Pooled runtimes are
+     * reset between uses instead of being cloned from the prototype every time, which makes this cheaper than
+     * {@link #runtime(ILanguageComponent, IContext)} for short-lived uses. The runtime is returned to the pool by
+     * closing the result, which should be done with a try-with-resources statement.
+     * 
+     * @param component
+     *            Language component to load the Stratego CTree and JAR files from.
+     * @param context
+     *            Context to initialize the runtime with.
+     * @return Borrowed Stratego runtime.
+     * @throws MetaborgException
+     *             When loading a Stratego CTree or JAR fails.
+     */
+    PooledStrategoRuntime pooledRuntime(ILanguageComponent component, IContext context) throws MetaborgException;
+
+    /**
+     * Borrows a Stratego runtime for given component from a pool, initialized without a context.
+     * 
+     * @param component
+     *            Language component to load the Stratego CTree and JAR files from.
+     * @param location
+     *            Location to initialize the runtime with.
+     * @return Borrowed Stratego runtime.
+     * @throws MetaborgException
+     *             When loading a Stratego CTree or JAR fails.
+     * @see #pooledRuntime(ILanguageComponent, IContext)
+     */
+    PooledStrategoRuntime pooledRuntime(ILanguageComponent component, FileObject location) throws MetaborgException;
+
     /**
      * @return Generic Stratego runtime, with just the standard libraries loaded.
      */
     HybridInterpreter genericRuntime();
+
+    /**
+     * Borrows a generic Stratego runtime, with just the standard libraries loaded, from a pool. Pooled generic runtimes
+     * are reset between uses, making this cheaper than {@link #genericRuntime()} for short-lived uses such as
+     * pretty-printing a term. The runtime is returned to the pool by closing the result, which should be done with a
+     * try-with-resources statement.
+     * 
+     * @return Borrowed generic Stratego runtime.
+     */
+    PooledStrategoRuntime pooledGenericRuntime();
 }
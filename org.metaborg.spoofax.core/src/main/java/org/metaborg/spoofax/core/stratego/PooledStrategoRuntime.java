@@ -0,0 +1,41 @@
+package org.metaborg.spoofax.core.stratego;
+
+import java.util.function.Consumer;
+
+import org.strategoxt.HybridInterpreter;
+
+/**
+ * Stratego runtime borrowed from a pool with {@link IStrategoRuntimeService#pooledRuntime}. Closing returns the runtime
+ * to its pool, use a try-with-resources statement to ensure that happens. The runtime must not be used after closing.
+ */
+public class PooledStrategoRuntime implements AutoCloseable {
+    private final HybridInterpreter runtime;
+    private final Consumer<HybridInterpreter> release;
+
+    private boolean released = false;
+
+
+    public PooledStrategoRuntime(HybridInterpreter runtime, Consumer<HybridInterpreter> release) {
+        this.runtime = runtime;
+        this.release = release;
+    }
+
+
+    /**
+     * @return Borrowed Stratego runtime.
+     */
+    public HybridInterpreter get() {
+        if(released) {
+            throw new IllegalStateException("Cannot use Stratego runtime, it has been returned to its pool");
+        }
+        return runtime;
+    }
+
+    @Override public void close() {
+        if(released) {
+            return;
+        }
+        released = true;
+        release.accept(runtime);
+    }
+}
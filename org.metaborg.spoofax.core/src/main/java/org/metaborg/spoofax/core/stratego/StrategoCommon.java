@@ -285,11 +285,13 @@ public class StrategoCommon implements IStrategoCommon {
     }
 
     @Override public IStrategoString prettyPrint(IStrategoTerm term) {
-        final Context context = strategoRuntimeService.genericRuntime().getCompiledContext();
-        org.strategoxt.stratego_aterm.Main.init(context);
-        term = aterm_escape_strings_0_0.instance.invoke(context, term);
-        term = pp_aterm_box_0_0.instance.invoke(context, term);
-        term = box2text_string_0_1.instance.invoke(context, term, termFactory.makeInt(120));
-        return (IStrategoString) term;
+        try(PooledStrategoRuntime runtime = strategoRuntimeService.pooledGenericRuntime()) {
+            final Context context = runtime.get().getCompiledContext();
+            org.strategoxt.stratego_aterm.Main.init(context);
+            term = aterm_escape_strings_0_0.instance.invoke(context, term);
+            term = pp_aterm_box_0_0.instance.invoke(context, term);
+            term = box2text_string_0_1.instance.invoke(context, term, termFactory.makeInt(120));
+            return (IStrategoString) term;
+        }
     }
 }
@@ -4,9 +4,11 @@ import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import javax.annotation.Nullable;
 
@@ -24,6 +26,7 @@ import org.metaborg.util.log.ILogger;
 import org.metaborg.util.log.LoggerUtils;
 import org.spoofax.interpreter.core.InterpreterException;
 import org.spoofax.interpreter.library.IOperatorRegistry;
+import org.spoofax.interpreter.library.ssl.SSLLibrary;
 import org.spoofax.interpreter.terms.ITermFactory;
 import org.strategoxt.HybridInterpreter;
 import org.strategoxt.IncompatibleJarException;
@@ -41,7 +44,16 @@ public class StrategoRuntimeService implements IStrategoRuntimeService, AutoClos
     private final ParseStrategoFileStrategy parseStrategoFileStrategy;
     private final Set<ClassLoader> additionalClassLoaders;
 
-    private final Map<ILanguageComponent, HybridInterpreter> prototypes = new HashMap<>();
+    /**
+     * Maximum number of idle runtimes kept in the pool of a language component.
+     */
+    private static final int maxPooledRuntimes = Runtime.getRuntime().availableProcessors();
+
+    // Read without locking by concurrent analyses and transformations, modified while holding the service lock.
+    private final ConcurrentMap<ILanguageComponent, HybridInterpreter> prototypes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<ILanguageComponent, BlockingQueue<HybridInterpreter>> pools =
+        new ConcurrentHashMap<>();
+    private final BlockingQueue<HybridInterpreter> genericPool = new LinkedBlockingQueue<>(maxPooledRuntimes);
 
 
     @Inject public StrategoRuntimeService(IResourceService resourceService, ITermFactory termFactory,
@@ -54,12 +66,14 @@ public class StrategoRuntimeService implements IStrategoRuntimeService, AutoClos
         this.additionalClassLoaders = additionalClassLoaders;
     }
 
-    @Override public void close() {
+    @Override public synchronized void close() {
         // Uninitialize prototype hybrid interpreters and clear the cache.
         for(HybridInterpreter runtime : prototypes.values()) {
             runtime.uninit();
         }
         prototypes.clear();
+        pools.clear();
+        genericPool.clear();
 
         // Set parse Stratego file strategy to default, freeing reference to services held by ParseStrategoFileStrategy.
         parse_stratego_file_0_0.instance = new parse_stratego_file_0_0();
@@ -68,10 +82,7 @@ public class StrategoRuntimeService implements IStrategoRuntimeService, AutoClos
 
     @Override public HybridInterpreter runtime(ILanguageComponent component, IContext context)
         throws MetaborgException {
-        HybridInterpreter prototype = prototypes.get(component);
-        if(prototype == null) {
-            prototype = createPrototype(component);
-        }
+        final HybridInterpreter prototype = prototype(component);
 
         final HybridInterpreter runtime = clone(prototype, context.location(), component);
         runtime.getContext().setContextObject(context);
@@ -81,35 +92,115 @@ public class StrategoRuntimeService implements IStrategoRuntimeService, AutoClos
 
     @Override public HybridInterpreter runtime(ILanguageComponent component, FileObject location)
         throws MetaborgException {
-        HybridInterpreter prototype = prototypes.get(component);
-        if(prototype == null) {
-            prototype = createPrototype(component);
-        }
+        final HybridInterpreter prototype = prototype(component);
 
         final HybridInterpreter runtime = clone(prototype, location, component);
         return runtime;
     }
 
+    @Override public PooledStrategoRuntime pooledRuntime(ILanguageComponent component, IContext context)
+        throws MetaborgException {
+        return borrow(component, context.location(), context);
+    }
+
+    @Override public PooledStrategoRuntime pooledRuntime(ILanguageComponent component, FileObject location)
+        throws MetaborgException {
+        return borrow(component, location, null);
+    }
+
     @Override public HybridInterpreter genericRuntime() {
         return createNew(termFactory);
     }
 
+    @Override public PooledStrategoRuntime pooledGenericRuntime() {
+        @Nullable HybridInterpreter runtime = genericPool.poll();
+        if(runtime == null) {
+            runtime = createNew(termFactory);
+        } else {
+            resetState(runtime);
+        }
+        return new PooledStrategoRuntime(runtime, r -> {
+            detach(r);
+            genericPool.offer(r);
+        });
+    }
+
 
-    @Override public void invalidateCache(ILanguageComponent component) {
+    @Override public synchronized void invalidateCache(ILanguageComponent component) {
         logger.debug("Removing cached stratego runtime for {}", component);
         final @Nullable HybridInterpreter runtime = prototypes.remove(component);
         if(runtime != null) {
             runtime.uninit();
         }
+        pools.remove(component);
     }
 
-    @Override public void invalidateCache(ILanguageImpl impl) {
+    @Override public synchronized void invalidateCache(ILanguageImpl impl) {
         logger.debug("Removing cached stratego runtime for {}", impl);
         for(ILanguageComponent component : impl.components()) {
             final @Nullable HybridInterpreter runtime = prototypes.remove(component);
             if(runtime != null) {
                 runtime.uninit();
             }
+            pools.remove(component);
+        }
+    }
+
+
+    private PooledStrategoRuntime borrow(ILanguageComponent component, FileObject workingLocation,
+        @Nullable IContext context) throws MetaborgException {
+        final BlockingQueue<HybridInterpreter> pool =
+            pools.computeIfAbsent(component, c -> new LinkedBlockingQueue<>(maxPooledRuntimes));
+
+        @Nullable HybridInterpreter runtime = pool.poll();
+        if(runtime == null) {
+            final HybridInterpreter prototype = prototype(component);
+            runtime = clone(prototype, workingLocation, component);
+        } else {
+            reset(runtime, workingLocation, component);
+        }
+        runtime.getContext().setContextObject(context);
+        runtime.getCompiledContext().setContextObject(context);
+
+        return new PooledStrategoRuntime(runtime, r -> {
+            // Only return the runtime when its pool has not been invalidated in the meantime, and drop it when the
+            // pool is full.
+            detach(r);
+            if(pools.get(component) == pool) {
+                pool.offer(r);
+            }
+        });
+    }
+
+    private void reset(HybridInterpreter runtime, FileObject workingLocation, ILanguageComponent component) {
+        resetState(runtime);
+
+        final ResourceAgent agent = new ResourceAgent(resourceService);
+        agent.setAbsoluteWorkingDir(workingLocation);
+        agent.setAbsoluteDefinitionDir(component.location());
+        runtime.setIOAgent(agent);
+    }
+
+    /**
+     * Releases references from a runtime that is returned to its pool, such that idle runtimes do not keep contexts
+     * and terms alive.
+     */
+    private void detach(HybridInterpreter runtime) {
+        runtime.getContext().setContextObject(null);
+        runtime.getCompiledContext().setContextObject(null);
+        runtime.setCurrent(termFactory.makeTuple());
+    }
+
+    private void resetState(HybridInterpreter runtime) {
+        runtime.setCurrent(termFactory.makeTuple());
+
+        // Clear dynamic rules and global tables, which are stored in the standard library of the runtime.
+        final @Nullable IOperatorRegistry registry =
+            runtime.getCompiledContext().getOperatorRegistry(SSLLibrary.REGISTRY_NAME);
+        if(registry != null) {
+            final SSLLibrary sslLibrary = (SSLLibrary) registry;
+            sslLibrary.getDynamicRuleTable().clear();
+            sslLibrary.getTableTable().clear();
         }
     }
 
@@ -155,6 +246,25 @@ public class StrategoRuntimeService implements IStrategoRuntimeService, AutoClos
         return interpreter;
     }
 
+    /**
+     * Gets the prototype runtime of given component, creating it if needed. Existing prototypes are returned without
+     * locking, creation is synchronized such that concurrent analyses and transformations of a component create its
+     * prototype only once.
+     */
+    private HybridInterpreter prototype(ILanguageComponent component) throws MetaborgException {
+        final @Nullable HybridInterpreter prototype = prototypes.get(component);
+        if(prototype != null) {
+            return prototype;
+        }
+        synchronized(this) {
+            final @Nullable HybridInterpreter created = prototypes.get(component);
+            if(created != null) {
+                return created;
+            }
+            return createPrototype(component);
+        }
+    }
+
     private HybridInterpreter createPrototype(ILanguageComponent component) throws MetaborgException {
         logger.debug("Creating prototype runtime for {}", component);
         final HybridInterpreter runtime = createNew(termFactory);
@@ -2,6 +2,8 @@ package org.metaborg.spoofax.core.style;
 
 import java.util.List;
 
+import javax.annotation.Nullable;
+
 import org.metaborg.core.language.ILanguageImpl;
 import org.metaborg.core.source.ISourceRegion;
 import org.metaborg.core.style.ICategory;
@@ -124,25 +126,36 @@ public class CategorizerService implements ISpoofaxCategorizerService {
     }
 
     private ICategory tokenCategory(IToken token) {
-        switch(token.getKind()) {
+        final String name = tokenName(token.getKind());
+        if(name == null) {
+            return null;
+        }
+        return new TokenCategory(name);
+    }
+
+    /**
+     * @return Name of the token category of given token kind, or null if tokens of given kind are not categorized.
+     */
+    static @Nullable String tokenName(IToken.Kind kind) {
+        switch(kind) {
             case TK_IDENTIFIER:
-                return new TokenCategory("TK_IDENTIFIER");
+                return "TK_IDENTIFIER";
             case TK_NUMBER:
-                return new TokenCategory("TK_NUMBER");
+                return "TK_NUMBER";
             case TK_STRING:
-                return new TokenCategory("TK_STRING");
+                return "TK_STRING";
             case TK_ERROR_KEYWORD:
             case TK_KEYWORD:
-                return new TokenCategory("TK_KEYWORD");
+                return "TK_KEYWORD";
             case TK_OPERATOR:
-                return new TokenCategory("TK_OPERATOR");
+                return "TK_OPERATOR";
             case TK_VAR:
-                return new TokenCategory("TK_VAR");
+                return "TK_VAR";
             case TK_ERROR_LAYOUT:
             case TK_LAYOUT:
-                return new TokenCategory("TK_LAYOUT");
+                return "TK_LAYOUT";
             default:
-                logger.debug("Unhandled token kind " + token.getKind());
+                logger.debug("Unhandled token kind " + kind);
             case TK_UNKNOWN:
             case TK_ERROR:
             case TK_EOF:
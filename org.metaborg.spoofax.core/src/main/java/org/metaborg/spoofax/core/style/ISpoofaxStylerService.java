@@ -1,11 +1,25 @@
 package org.metaborg.spoofax.core.style;
 
+import org.metaborg.core.language.ILanguageImpl;
 import org.metaborg.core.style.IStylerService;
+import org.metaborg.core.style.StyleRuns;
+import org.metaborg.spoofax.core.unit.ISpoofaxParseUnit;
 import org.spoofax.interpreter.terms.IStrategoTerm;
 
 /**
  * Typedef interface for {@link IStylerService} with Spoofax interfaces.
  */
 public interface ISpoofaxStylerService extends IStylerService<IStrategoTerm> {
-
+    /**
+     * Returns a compact styling of given parse result, equivalent to categorizing and styling it, without allocating
+     * objects per token.
+     * 
+     * @param langImpl
+     *            Language implementation that contains the styling logic.
+     * @param parseResult
+     *            Parse result to style.
+     * @return Styled runs of the source text, in ascending order of offset. Adjacent tokens with the same style are
+     *         merged into a single run.
+     */
+    StyleRuns styleParsedRuns(ILanguageImpl langImpl, ISpoofaxParseUnit parseResult);
 }
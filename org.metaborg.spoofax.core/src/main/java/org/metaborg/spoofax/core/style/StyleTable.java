@@ -0,0 +1,135 @@
+package org.metaborg.spoofax.core.style;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import org.metaborg.core.style.IStyle;
+import org.spoofax.interpreter.terms.IStrategoAppl;
+import org.spoofax.interpreter.terms.IStrategoTerm;
+import org.spoofax.jsglr.client.imploder.IToken;
+import org.spoofax.jsglr.client.imploder.ImploderAttachment;
+import org.spoofax.terms.attachments.ParentAttachment;
+import org.spoofax.terms.util.TermUtils;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Styling rules of a {@link StylerFacet}, interned into integer style identifiers. Distinct styles are numbered, rules
+ * map sorts, constructors, and token kinds to style identifiers, such that styling a token allocates nothing. Follows
+ * the same rules as {@link CategorizerService} followed by {@link StylerService}.
+ */
+class StyleTable {
+    public static final int noStyle = -1;
+
+    private final IStyle[] styles;
+    private final Map<String, Map<String, Integer>> sortConsIds = Maps.newHashMap();
+    private final Map<String, Integer> consIds = Maps.newHashMap();
+    private final Map<String, Integer> sortIds = Maps.newHashMap();
+    private final int[] tokenIds;
+
+
+    public StyleTable(Map<SortConsCategory, IStyle> sortConsToStyle, Map<String, IStyle> consToStyle,
+        Map<String, IStyle> sortToStyle, Map<String, IStyle> tokenToStyle) {
+        final Map<IStyle, Integer> ids = Maps.newLinkedHashMap();
+        for(Map.Entry<SortConsCategory, IStyle> entry : sortConsToStyle.entrySet()) {
+            final SortConsCategory category = entry.getKey();
+            sortConsIds.computeIfAbsent(category.sort, s -> Maps.newHashMap()).put(category.cons,
+                intern(ids, entry.getValue()));
+        }
+        for(Map.Entry<String, IStyle> entry : consToStyle.entrySet()) {
+            consIds.put(entry.getKey(), intern(ids, entry.getValue()));
+        }
+        for(Map.Entry<String, IStyle> entry : sortToStyle.entrySet()) {
+            sortIds.put(entry.getKey(), intern(ids, entry.getValue()));
+        }
+        final IToken.Kind[] kinds = IToken.Kind.values();
+        tokenIds = new int[kinds.length];
+        Arrays.fill(tokenIds, noStyle);
+        for(IToken.Kind kind : kinds) {
+            final @Nullable String name = CategorizerService.tokenName(kind);
+            final @Nullable IStyle style = name != null ? tokenToStyle.get(name) : null;
+            if(style != null) {
+                tokenIds[kind.ordinal()] = intern(ids, style);
+            }
+        }
+        styles = ids.keySet().toArray(new IStyle[ids.size()]);
+    }
+
+
+    /**
+     * @return Table of distinct styles, indexed by style identifier.
+     */
+    public IStyle[] styles() {
+        return styles;
+    }
+
+    /**
+     * @return Style identifier of given token, or {@link #noStyle} if the token has no style.
+     */
+    public int styleId(IToken token) {
+        final IStrategoTerm term = (IStrategoTerm) token.getAstNode();
+        if(term == null) {
+            return tokenIds[token.getKind().ordinal()];
+        }
+
+        if(!TermUtils.isAppl(term) && !TermUtils.isTuple(term) && !TermUtils.isList(term)) {
+            // Try to use the parent of terminal nodes, mimicking behavior of old Spoofax/IMP runtime.
+            final IStrategoTerm parentTerm = ParentAttachment.getParent(term);
+            if(parentTerm != null) {
+                final int id = sortConsId(parentTerm);
+                if(id != noStyle) {
+                    return id;
+                }
+            }
+        }
+
+        final int id = sortConsId(term);
+        if(id != noStyle) {
+            return id;
+        }
+
+        return tokenIds[token.getKind().ordinal()];
+    }
+
+
+    private int sortConsId(IStrategoTerm term) {
+        final ImploderAttachment imploderAttachment = ImploderAttachment.get(term);
+        if(imploderAttachment == null) {
+            return noStyle;
+        }
+        String sort = imploderAttachment.getSort();
+        if(sort == null) {
+            return noStyle;
+        }
+        // LEGACY: for some reason, when using concrete syntax extensions, all sorts are appended with _sort.
+        if(sort.contains("_sort")) {
+            sort = sort.replace("_sort", "");
+        }
+        if(TermUtils.isAppl(term)) {
+            final String cons = ((IStrategoAppl) term).getConstructor().getName();
+            final @Nullable Map<String, Integer> consIdsOfSort = sortConsIds.get(sort);
+            final @Nullable Integer sortConsId = consIdsOfSort != null ? consIdsOfSort.get(cons) : null;
+            if(sortConsId != null) {
+                return sortConsId;
+            }
+            final @Nullable Integer consId = consIds.get(cons);
+            if(consId != null) {
+                return consId;
+            }
+        }
+        final @Nullable Integer sortId = sortIds.get(sort);
+        return sortId != null ? sortId : noStyle;
+    }
+
+    private static int intern(Map<IStyle, Integer> ids, IStyle style) {
+        final @Nullable Integer id = ids.get(style);
+        if(id != null) {
+            return id;
+        }
+        final int newId = ids.size();
+        ids.put(style, newId);
+        return newId;
+    }
+}
@@ -15,6 +15,8 @@ public class StylerFacet implements IFacet {
     private final Map<String, IStyle> sortToStyle = Maps.newHashMap();
     private final Map<String, IStyle> tokenToStyle = Maps.newHashMap();
 
+    private volatile @Nullable StyleTable table;
+
 
     public boolean hasSortConsStyle(String sort, String cons) {
         return sortConsToStyle.containsKey(new SortConsCategory(sort, cons));
@@ -52,17 +54,34 @@ public class StylerFacet implements IFacet {
 
     public void mapSortConsToStyle(String sort, String cons, IStyle style) {
         sortConsToStyle.put(new SortConsCategory(sort, cons), style);
+        table = null;
     }
 
     public void mapConsToStyle(String cons, IStyle style) {
         consToStyle.put(cons, style);
+        table = null;
     }
 
     public void mapSortToStyle(String sort, IStyle style) {
         sortToStyle.put(sort, style);
+        table = null;
     }
 
     public void mapTokenToStyle(String builtin, IStyle style) {
         tokenToStyle.put(builtin, style);
+        table = null;
+    }
+
+
+    /**
+     * @return Styling rules of this facet interned into integer style identifiers, built on first use.
+     */
+    StyleTable table() {
+        @Nullable StyleTable table = this.table;
+        if(table == null) {
+            table = new StyleTable(sortConsToStyle, consToStyle, sortToStyle, tokenToStyle);
+            this.table = table;
+        }
+        return table;
     }
 }
@@ -10,10 +10,15 @@ import org.metaborg.core.style.IRegionCategory;
 import org.metaborg.core.style.IRegionStyle;
 import org.metaborg.core.style.IStyle;
 import org.metaborg.core.style.RegionStyle;
+import org.metaborg.core.style.StyleRuns;
+import org.metaborg.spoofax.core.unit.ISpoofaxParseUnit;
 import org.metaborg.util.iterators.Iterables2;
 import org.metaborg.util.log.ILogger;
 import org.metaborg.util.log.LoggerUtils;
 import org.spoofax.interpreter.terms.IStrategoTerm;
+import org.spoofax.jsglr.client.imploder.IToken;
+import org.spoofax.jsglr.client.imploder.ITokens;
+import org.spoofax.jsglr.client.imploder.ImploderAttachment;
 
 import com.google.common.collect.Lists;
 
@@ -41,6 +46,51 @@ public class StylerService implements ISpoofaxStylerService {
         return regionStyles;
     }
 
+    @Override public StyleRuns styleParsedRuns(ILanguageImpl language, ISpoofaxParseUnit parseResult) {
+        final StyleRuns empty = new StyleRuns.Builder(new IStyle[0], 0).build();
+        if(!parseResult.valid()) {
+            return empty;
+        }
+
+        final StylerFacet facet = language.facet(StylerFacet.class);
+        if(facet == null) {
+            logger.error("Cannot style input of {}, it does not have a styler facet", language);
+            // GTODO: throw exception instead
+            return empty;
+        }
+
+        final ImploderAttachment rootImploderAttachment = ImploderAttachment.get(parseResult.ast());
+        if(rootImploderAttachment == null) {
+            logger.error("Cannot style input {} of {}, it does not have an imploder attachment", parseResult,
+                language);
+            // GTODO: throw exception instead
+            return empty;
+        }
+        final ITokens tokenizer = rootImploderAttachment.getLeftToken().getTokenizer();
+        if(tokenizer == null) {
+            logger.error("Cannot style input {} of {}, it does not have a tokenizer", parseResult, language);
+            // GTODO: throw exception instead
+            return empty;
+        }
+
+        final StyleTable table = facet.table();
+        final StyleRuns.Builder runs = new StyleRuns.Builder(table.styles(), tokenizer.getTokenCount());
+        for(IToken token : tokenizer) {
+            final int styleId = table.styleId(token);
+            if(styleId == StyleTable.noStyle) {
+                continue;
+            }
+            final int offset = token.getStartOffset();
+            final int length = token.getEndOffset() - offset + 1;
+            if(length <= 0) {
+                // Skip empty regions for styling.
+                continue;
+            }
+            runs.add(offset, length, styleId);
+        }
+        return runs.build();
+    }
+
     @Override public Iterable<IRegionStyle<IStrategoTerm>> styleAnalyzed(ILanguageImpl language,
         Iterable<IRegionCategory<IStrategoTerm>> categorization) {
         throw new UnsupportedOperationException();
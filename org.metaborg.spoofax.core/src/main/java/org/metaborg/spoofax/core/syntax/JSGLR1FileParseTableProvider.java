@@ -1,14 +1,12 @@
 package org.metaborg.spoofax.core.syntax;
 
 import java.io.IOException;
-import java.io.InputStream;
 
 import org.apache.commons.vfs2.FileObject;
 import org.metaborg.sdf2table.io.ParseTableIO;
 import org.spoofax.interpreter.terms.IStrategoTerm;
 import org.spoofax.interpreter.terms.ITermFactory;
 import org.spoofax.jsglr.client.ParseTable;
-import org.spoofax.terms.io.binary.TermReader;
 
 public class JSGLR1FileParseTableProvider implements IParseTableProvider {
     private final FileObject resource;
@@ -21,7 +19,7 @@ public class JSGLR1FileParseTableProvider implements IParseTableProvider {
         this.termFactory = termFactory;
     }
 
-    @Override public ParseTable parseTable() throws IOException {
+    @Override public synchronized ParseTable parseTable() throws IOException {
         if(parseTable != null) {
             return parseTable;
         }
@@ -32,9 +30,8 @@ public class JSGLR1FileParseTableProvider implements IParseTableProvider {
             throw new IOException("Could not load parse table from " + resource + ", file does not exist");
         }
 
-        try(final InputStream stream = resource.getContent().getInputStream()) {
-            final TermReader termReader = new TermReader(termFactory);
-            IStrategoTerm parseTableTerm = termReader.parseFromStream(stream);
+        try {
+            IStrategoTerm parseTableTerm = ParseTableTermCache.read(resource, termFactory);
 
             // Name of parse table Java object is currently fixed as table.bin and table-completions.bin
             FileObject persistedTable;
@@ -1,7 +1,6 @@
 package org.metaborg.spoofax.core.syntax;
 
 import java.io.IOException;
-import java.io.InputStream;
 
 import org.apache.commons.vfs2.FileObject;
 import org.metaborg.sdf2table.io.IncrementalParseTableGenerator;
@@ -9,7 +8,6 @@ import org.metaborg.sdf2table.io.ParseTableIO;
 import org.spoofax.interpreter.terms.IStrategoTerm;
 import org.spoofax.interpreter.terms.ITermFactory;
 import org.spoofax.jsglr.client.ParseTable;
-import org.spoofax.terms.io.binary.TermReader;
 
 public class JSGLR1IncrementalParseTableProvider implements IParseTableProvider {
     private final FileObject resource;
@@ -27,7 +25,7 @@ public class JSGLR1IncrementalParseTableProvider implements IParseTableProvider
     }
 
 
-    @Override public ParseTable parseTable() throws IOException {
+    @Override public synchronized ParseTable parseTable() throws IOException {
         if(parseTable != null) {
             return parseTable;
         }
@@ -37,9 +35,8 @@ public class JSGLR1IncrementalParseTableProvider implements IParseTableProvider
             throw new IOException("Could not load parse table from " + resource + ", file does not exist");
         }
 
-        try(final InputStream stream = resource.getContent().getInputStream()) {
-            final TermReader termReader = new TermReader(termFactory);
-            final IStrategoTerm parseTableTerm = termReader.parseFromStream(stream);
+        try {
+            final IStrategoTerm parseTableTerm = ParseTableTermCache.read(resource, termFactory);
 
             FileObject persistedTable = resource.getParent().resolveFile("table.bin");
             if(persistedTable.exists()) {
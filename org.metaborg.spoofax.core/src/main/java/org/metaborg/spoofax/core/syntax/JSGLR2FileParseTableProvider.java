@@ -1,7 +1,6 @@
 package org.metaborg.spoofax.core.syntax;
 
 import java.io.IOException;
-import java.io.InputStream;
 
 import org.apache.commons.vfs2.FileObject;
 import org.metaborg.parsetable.IParseTable;
@@ -9,7 +8,6 @@ import org.metaborg.sdf2table.io.ParseTableIO;
 import org.spoofax.interpreter.terms.IStrategoTerm;
 import org.spoofax.interpreter.terms.ITermFactory;
 import org.metaborg.parsetable.ParseTableReader;
-import org.spoofax.terms.io.binary.TermReader;
 
 public class JSGLR2FileParseTableProvider implements IParseTableProvider {
     private final FileObject resource;
@@ -22,7 +20,7 @@ public class JSGLR2FileParseTableProvider implements IParseTableProvider {
         this.termFactory = termFactory;
     }
 
-    @Override public IParseTable parseTable() throws IOException {
+    @Override public synchronized IParseTable parseTable() throws IOException {
         if(parseTable != null) {
             return parseTable;
         }
@@ -33,9 +31,8 @@ public class JSGLR2FileParseTableProvider implements IParseTableProvider {
             throw new IOException("Could not load parse table from " + resource + ", file does not exist");
         }
 
-        try(final InputStream stream = resource.getContent().getInputStream()) {
-            final TermReader termReader = new TermReader(termFactory);
-            IStrategoTerm parseTableTerm = termReader.parseFromStream(stream);
+        try {
+            IStrategoTerm parseTableTerm = ParseTableTermCache.read(resource, termFactory);
 
             FileObject persistedTable = resource.getParent().resolveFile("table.bin");
             parseTable = new ParseTableReader().read(parseTableTerm);
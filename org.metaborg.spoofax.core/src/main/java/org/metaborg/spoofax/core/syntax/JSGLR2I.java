@@ -31,13 +31,30 @@ import org.spoofax.jsglr2.messages.Message;
 public class JSGLR2I extends JSGLRI<IParseTable> {
 
     private final JSGLR2<IStrategoTerm> parser;
+    private final @Nullable JSGLR2IncrementalCache incrementalCache;
 
     public JSGLR2I(IParserConfig config, ITermFactory termFactory, ILanguageImpl language, ILanguageImpl dialect,
         JSGLRVersion jsglrVersion, JSGLR2Logging jsglr2Logging) throws IOException {
+        this(config, termFactory, language, dialect, jsglrVersion, jsglr2Logging, null);
+    }
+
+    /**
+     * @param incrementalCache
+     *            Cache of previous parse results of this parser, used for reparsing when {@code jsglrVersion} is an
+     *            incremental variant, or null to always parse from scratch. Must not be shared with other parsers.
+     */
+    public JSGLR2I(IParserConfig config, ITermFactory termFactory, ILanguageImpl language, ILanguageImpl dialect,
+        JSGLRVersion jsglrVersion, JSGLR2Logging jsglr2Logging, @Nullable JSGLR2IncrementalCache incrementalCache)
+        throws IOException {
         super(config, termFactory, language, dialect);
 
         this.parseTable = getParseTable(config.getParseTableProvider());
         this.parser = getJSGLR2Spec(jsglrVersion, jsglr2Logging).getJSGLR2(parseTable);
+        this.incrementalCache = isIncremental(jsglrVersion) ? incrementalCache : null;
+    }
+
+    public static boolean isIncremental(JSGLRVersion jsglrVersion) {
+        return jsglrVersion == JSGLRVersion.incremental || jsglrVersion == JSGLRVersion.recoveryIncremental;
     }
 
     private JSGLR2Spec getJSGLR2Spec(JSGLRVersion jsglrVersion, JSGLR2Logging jsglr2Logging) {
@@ -99,7 +116,17 @@ public class JSGLR2I extends JSGLRI<IParseTable> {
             .withCompletion(parserConfig.completion ? Optional.of(parserConfig.cursorPosition) : Optional.empty())
             .withAmbiguitiesReporting(true);
 
-        final JSGLR2Result<IStrategoTerm> result = parser.parseResult(request);
+        // Completion parses insert placeholders, so they are never used for or stored as incremental results.
+        final boolean incremental = incrementalCache != null && resource != null && !parserConfig.completion;
+        final JSGLR2IncrementalCache.Entry previous =
+            incremental ? incrementalCache.get(resource.getName(), parseTable) : null;
+
+        final JSGLR2Result<IStrategoTerm> result;
+        if(previous != null) {
+            result = parser.parseResult(request, previous.input, previous.ast);
+        } else {
+            result = parser.parseResult(request);
+        }
         IStrategoTerm ast = result.isSuccess() ? ((JSGLR2Success<IStrategoTerm>) result).ast : null;
         boolean isAmbiguous = result.isSuccess() && ((JSGLR2Success<IStrategoTerm>) result).isAmbiguous();
         final Collection<IMessage> messages = mapMessages(resource, result.messages);
@@ -109,6 +136,10 @@ public class JSGLR2I extends JSGLRI<IParseTable> {
         final boolean hasAst = ast != null;
         final boolean hasErrors = MessageUtils.containsSeverity(messages, MessageSeverity.ERROR);
 
+        if(incremental && hasAst && !hasErrors) {
+            incrementalCache.put(resource.getName(), input, ast, parseTable);
+        }
+
         if(hasAst && resource != null)
             SourceAttachment.putSource(ast, resource);
 
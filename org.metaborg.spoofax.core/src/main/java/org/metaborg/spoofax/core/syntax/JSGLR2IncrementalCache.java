@@ -0,0 +1,96 @@
+package org.metaborg.spoofax.core.syntax;
+
+import javax.annotation.Nullable;
+
+import org.apache.commons.vfs2.FileName;
+import org.metaborg.parsetable.IParseTable;
+import org.spoofax.interpreter.terms.IStrategoTerm;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Stores the last successful JSGLR2 parse result per resource, for a single parser instance. Incremental JSGLR2 variants
+ * use the previous input and result to only reparse the parts of a file that changed. The previous result must have
+ * been produced by the same parser instance, since the parser keeps additional state about previous parses.
+ *
+ * The cache is bounded by the total number of characters of the stored inputs, evicting the least recently used
+ * entries when full. Entries are tied to the parse table they were produced with, and are ignored when the parse table
+ * changes.
+ */
+public class JSGLR2IncrementalCache {
+    /**
+     * Default maximum total number of characters of inputs stored in a cache.
+     */
+    public static final long defaultMaxCharacters = 16 * 1024 * 1024;
+
+
+    public static class Entry {
+        public final String input;
+        public final IStrategoTerm ast;
+        private final IParseTable parseTable;
+
+
+        private Entry(String input, IStrategoTerm ast, IParseTable parseTable) {
+            this.input = input;
+            this.ast = ast;
+            this.parseTable = parseTable;
+        }
+    }
+
+
+    private final Cache<FileName, Entry> entries;
+
+
+    public JSGLR2IncrementalCache(long maxCharacters) {
+        this.entries = CacheBuilder.newBuilder().maximumWeight(maxCharacters)
+            .<FileName, Entry>weigher((name, entry) -> entry.input.length()).build();
+    }
+
+    public JSGLR2IncrementalCache() {
+        this(defaultMaxCharacters);
+    }
+
+
+    /**
+     * Gets the previous parse result for given resource.
+     *
+     * @param resource
+     *            Name of the parsed resource.
+     * @param parseTable
+     *            Parse table that will be used for parsing.
+     * @return Previous parse result, or null if there is none, or if it was produced with a different parse table.
+     */
+    public @Nullable Entry get(FileName resource, IParseTable parseTable) {
+        final @Nullable Entry entry = entries.getIfPresent(resource);
+        if(entry == null) {
+            return null;
+        }
+        if(entry.parseTable != parseTable) {
+            entries.invalidate(resource);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Stores a successful parse result for given resource, replacing any previous result.
+     */
+    public void put(FileName resource, String input, IStrategoTerm ast, IParseTable parseTable) {
+        entries.put(resource, new Entry(input, ast, parseTable));
+    }
+
+    /**
+     * Removes the parse result for given resource.
+     */
+    public void remove(FileName resource) {
+        entries.invalidate(resource);
+    }
+
+    /**
+     * Removes all stored parse results.
+     */
+    public void clear() {
+        entries.invalidateAll();
+    }
+}
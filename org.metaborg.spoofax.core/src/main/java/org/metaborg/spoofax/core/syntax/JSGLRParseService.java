@@ -3,6 +3,7 @@ package org.metaborg.spoofax.core.syntax;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.annotation.Nullable;
 
@@ -39,19 +40,27 @@ public class JSGLRParseService implements ISpoofaxParser, ILanguageCache, AutoCl
 
     private static final ILogger logger = LoggerUtils.logger(JSGLRParseService.class);
 
+    /**
+     * Maximum number of parser instances per language implementation, bounding the number of concurrent parses of the
+     * same language.
+     */
+    private static final int maxParsersPerLanguage = Runtime.getRuntime().availableProcessors();
+    private static final long incrementalCacheCharacters =
+        JSGLR2IncrementalCache.defaultMaxCharacters / maxParsersPerLanguage;
+
     private final ISpoofaxUnitService unitService;
     private final ITermFactory termFactory;
     private final IStrategoRuntimeService strategoRuntimeService;
     private final JSGLRParserConfiguration defaultParserConfig;
 
-    private final Map<ILanguageImpl, IParserConfig> parserConfigs = Maps.newHashMap();
-    private final Map<ILanguageImpl, IParserConfig> completionParserConfigs = Maps.newHashMap();
+    private final ConcurrentMap<ILanguageImpl, IParserConfig> parserConfigs = Maps.newConcurrentMap();
+    private final ConcurrentMap<ILanguageImpl, IParserConfig> completionParserConfigs = Maps.newConcurrentMap();
 
-    private final Map<ILanguageImpl, ParseTable> referenceParseTables = Maps.newHashMap();
-    private final Map<ILanguageImpl, ParseTable> referenceCompletionParseTables = Maps.newHashMap();
+    private final ConcurrentMap<ILanguageImpl, ParseTable> referenceParseTables = Maps.newConcurrentMap();
+    private final ConcurrentMap<ILanguageImpl, ParseTable> referenceCompletionParseTables = Maps.newConcurrentMap();
 
-    private final Map<ILanguageImpl, JSGLRI<?>> parsers = Maps.newHashMap();
-    private final Map<ILanguageImpl, JSGLRI<?>> completionParsers = Maps.newHashMap();
+    private final ConcurrentMap<ILanguageImpl, JSGLRParserPool> parsers = Maps.newConcurrentMap();
+    private final ConcurrentMap<ILanguageImpl, JSGLRParserPool> completionParsers = Maps.newConcurrentMap();
 
     @Inject public JSGLRParseService(ISpoofaxUnitService unitService, ITermFactory termFactory,
         IStrategoRuntimeService strategoRuntimeService, JSGLRParserConfiguration defaultParserConfig) {
@@ -82,13 +91,21 @@ public class JSGLRParseService implements ISpoofaxParser, ILanguageCache, AutoCl
         try {
             logger.trace("Parsing {}", source);
 
-            final JSGLRI<?> parser = getParser(input, parserConfig, overrideJSGLRVersion, overrideImploder);
-
-            final ParseContrib contrib = parser.parse(parserConfig, source, text);
+            final JSGLRParserPool pool = getParserPool(input, parserConfig, overrideJSGLRVersion, overrideImploder);
+            final JSGLRI<?> parser = pool.acquire(source != null ? source.getName() : null);
+            final ParseContrib contrib;
+            try {
+                contrib = parser.parse(parserConfig, source, text);
+            } finally {
+                pool.release(parser);
+            }
 
             return unitService.parseUnit(input, contrib);
         } catch(IOException e) {
             throw new ParseException(input, e);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ParseException(input, "Interrupted while waiting for a parser", e);
         }
     }
 
@@ -139,9 +156,9 @@ public class JSGLRParseService implements ISpoofaxParser, ILanguageCache, AutoCl
     }
 
 
-    private JSGLRI<?> getParser(ISpoofaxInputUnit input, JSGLRParserConfiguration parserConfig,
+    private JSGLRParserPool getParserPool(ISpoofaxInputUnit input, JSGLRParserConfiguration parserConfig,
         @Nullable JSGLRVersion overrideJSGLRVersion, @Nullable ImploderImplementation overrideImploder)
-        throws IOException, ParseException {
+        throws ParseException {
 
         ILanguageImpl langImpl;
         final ILanguageImpl base;
@@ -157,36 +174,48 @@ public class JSGLRParseService implements ISpoofaxParser, ILanguageCache, AutoCl
             langImpl = new LanguageImplementationWithParserOverride(langImpl, overrideImploder, overrideJSGLRVersion);
         }
 
-        final Map<ILanguageImpl, JSGLRI<?>> parserMap = parserConfig.completion ? completionParsers : parsers;
+        final ConcurrentMap<ILanguageImpl, JSGLRParserPool> parserMap =
+            parserConfig.completion ? completionParsers : parsers;
 
-        if(!parserMap.containsKey(langImpl)) {
-            final IParserConfig config =
-                getParserConfig(langImpl, input, parserConfig.completion, overrideJSGLRVersion, overrideImploder);
-            final JSGLRVersion version = jsglrVersion(input, overrideJSGLRVersion);
+        final JSGLRParserPool existingPool = parserMap.get(langImpl);
+        if(existingPool != null) {
+            return existingPool;
+        }
 
-            final JSGLRI<?> parser;
-            if(version == JSGLRVersion.v1) {
+        final IParserConfig config =
+            getParserConfig(langImpl, input, parserConfig.completion, overrideJSGLRVersion, overrideImploder);
+        final JSGLRVersion version = jsglrVersion(input, overrideJSGLRVersion);
+        final ILanguageImpl parserLangImpl = langImpl;
+
+        final JSGLRParserPool.IParserFactory factory;
+        if(version == JSGLRVersion.v1) {
+            factory = () -> {
+                // Each JSGLR1 parser gets its own Stratego context, since the imploder is not thread-safe.
                 final Context context = strategoRuntimeService.genericRuntime().getCompiledContext();
                 if(base != null) {
-                    parser = new JSGLR1I(config, termFactory, context, base, langImpl);
+                    return new JSGLR1I(config, termFactory, context, base, parserLangImpl);
                 } else {
-                    parser = new JSGLR1I(config, termFactory, context, langImpl, null);
+                    return new JSGLR1I(config, termFactory, context, parserLangImpl, null);
                 }
-            } else {
-                final JSGLR2Logging jsglr2Logging = jsglr2Logging(input);
-
-                parser = new JSGLR2I(config, termFactory, langImpl, null, version, jsglr2Logging);
-            }
-
-            parserMap.put(langImpl, parser);
+            };
+        } else {
+            final JSGLR2Logging jsglr2Logging = jsglr2Logging(input);
+            // Each parser keeps its own previous results, since incremental parsing also depends on state inside the
+            // parser. The pool hands out the parser that last parsed a resource again for that resource.
+            final boolean incremental = JSGLR2I.isIncremental(version);
+            factory = () -> new JSGLR2I(config, termFactory, parserLangImpl, null, version, jsglr2Logging,
+                incremental ? new JSGLR2IncrementalCache(incrementalCacheCharacters) : null);
         }
-        return parserMap.get(langImpl);
+
+        final JSGLRParserPool newPool = new JSGLRParserPool(factory, maxParsersPerLanguage);
+        final JSGLRParserPool racedPool = parserMap.putIfAbsent(langImpl, newPool);
+        return racedPool != null ? racedPool : newPool;
     }
 
     private IParserConfig getParserConfig(ILanguageImpl lang, ISpoofaxInputUnit input, boolean completion,
         @Nullable JSGLRVersion overrideJSGLRVersion, @Nullable ImploderImplementation overrideImploder)
         throws ParseException {
-        final Map<ILanguageImpl, IParserConfig> parserConfigMap;
+        final ConcurrentMap<ILanguageImpl, IParserConfig> parserConfigMap;
         if(completion) {
             parserConfigMap = this.completionParserConfigs;
         } else {
@@ -278,7 +307,12 @@ public class JSGLRParseService implements ISpoofaxParser, ILanguageCache, AutoCl
                 parserConfig = new ParserConfig(
                     facet.startSymbols != null ? Iterables.get(facet.startSymbols, 0) : null, provider, facet.imploder);
             }
-            parserConfigMap.put(lang, parserConfig);
+            // Another thread may have created a configuration concurrently; use that one such that all parsers share
+            // the same parse table provider.
+            final @Nullable IParserConfig racedParserConfig = parserConfigMap.putIfAbsent(lang, parserConfig);
+            if(racedParserConfig != null) {
+                parserConfig = racedParserConfig;
+            }
         }
         return parserConfig;
     }
@@ -0,0 +1,110 @@
+package org.metaborg.spoofax.core.syntax;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+
+import javax.annotation.Nullable;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Bounded pool of {@link JSGLRI} parsers for a single language implementation. Parser instances are mutable and may
+ * only be used by one thread at a time, but all parsers in a pool are created from the same {@link IParserConfig}, and
+ * therefore share a single parse table.
+ *
+ * Parsers may keep state about the resources they parsed, such as previous results for incremental parsing. Therefore,
+ * the pool hands out the parser that last parsed a resource again for that resource when it is idle.
+ */
+public class JSGLRParserPool {
+    /**
+     * Creates new parser instances for a pool.
+     */
+    @FunctionalInterface public interface IParserFactory {
+        JSGLRI<?> create() throws IOException;
+    }
+
+
+    private final IParserFactory factory;
+
+    private final Queue<JSGLRI<?>> idle = new ConcurrentLinkedQueue<>();
+    // One permit per parser that may be in use, such that at most maxSize parsers are ever created.
+    private final Semaphore permits;
+    // Parser that last parsed each resource, bounded since resources are never removed from it.
+    private final Cache<Object, JSGLRI<?>> lastParsers = CacheBuilder.newBuilder().maximumSize(1024).build();
+
+
+    public JSGLRParserPool(IParserFactory factory, int maxSize) {
+        this.factory = factory;
+        this.permits = new Semaphore(Math.max(1, maxSize), true);
+    }
+
+
+    /**
+     * Acquires a parser for exclusive use by the calling thread. Returns an idle parser if there is one, creates a new
+     * parser if the pool has not reached its maximum size yet, or otherwise waits until another thread releases one.
+     * Acquired parsers must be returned with {@link #release(JSGLRI)}.
+     *
+     * @return Parser for exclusive use.
+     * @throws IOException
+     *             When creating a new parser fails.
+     * @throws InterruptedException
+     *             When interrupted while waiting for a parser to be released.
+     */
+    public JSGLRI<?> acquire() throws IOException, InterruptedException {
+        return acquire(null);
+    }
+
+    /**
+     * Acquires a parser for exclusive use by the calling thread to parse given resource. Returns the parser that last
+     * parsed the resource if it is idle, and otherwise acquires a parser like {@link #acquire()}. Acquired parsers must
+     * be returned with {@link #release(JSGLRI)}.
+     *
+     * @param resource
+     *            Key of the resource that will be parsed, or null if the parser should not be kept for a resource.
+     * @return Parser for exclusive use.
+     * @throws IOException
+     *             When creating a new parser fails.
+     * @throws InterruptedException
+     *             When interrupted while waiting for a parser to be released.
+     */
+    public JSGLRI<?> acquire(@Nullable Object resource) throws IOException, InterruptedException {
+        permits.acquire();
+        try {
+            final JSGLRI<?> parser = acquireIdleOrCreate(resource);
+            if(resource != null) {
+                lastParsers.put(resource, parser);
+            }
+            return parser;
+        } catch(IOException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private JSGLRI<?> acquireIdleOrCreate(@Nullable Object resource) throws IOException {
+        if(resource != null) {
+            final @Nullable JSGLRI<?> lastParser = lastParsers.getIfPresent(resource);
+            if(lastParser != null && idle.remove(lastParser)) {
+                return lastParser;
+            }
+        }
+        // Parsers are returned to the idle queue before their permit is released, so a thread that holds a permit
+        // finds an idle parser if the maximum number of parsers was created already.
+        final JSGLRI<?> parser = idle.poll();
+        if(parser != null) {
+            return parser;
+        }
+        return factory.create();
+    }
+
+    /**
+     * Returns a parser that was acquired with {@link #acquire()} or {@link #acquire(Object)} to the pool.
+     */
+    public void release(JSGLRI<?> parser) {
+        idle.offer(parser);
+        permits.release();
+    }
+}
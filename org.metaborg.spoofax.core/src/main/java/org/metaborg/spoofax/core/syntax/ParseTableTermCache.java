@@ -0,0 +1,486 @@
+package org.metaborg.spoofax.core.syntax;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.vfs2.FileObject;
+import org.metaborg.util.log.ILogger;
+import org.metaborg.util.log.LoggerUtils;
+import org.spoofax.interpreter.terms.IStrategoAppl;
+import org.spoofax.interpreter.terms.IStrategoConstructor;
+import org.spoofax.interpreter.terms.IStrategoList;
+import org.spoofax.interpreter.terms.IStrategoTerm;
+import org.spoofax.interpreter.terms.ITermFactory;
+import org.spoofax.terms.io.binary.TermReader;
+import org.spoofax.terms.util.TermUtils;
+
+/**
+ * Reads parse table terms, caching them in a compact binary format on disk. Parsing the textual ATerm of a large parse
+ * table is expensive, so the parsed term is stored in a cache file keyed by the SHA-256 hash of the parse table file.
+ * When a cache file is missing, has a different format version, does not match the hash, or is otherwise unreadable,
+ * the parse table is parsed from its ATerm instead and the cache file is rewritten.
+ *
+ * The cache is only used when its directory is set with the {@value #cacheDirProperty} system property, it is disabled
+ * when the property is not set or set to an empty string. The directory is created
+ * accessible by its owner only. On file systems with POSIX permissions, the cache is not used when the directory is
+ * owned by another user or writable by other users, since cache files are trusted to contain valid parse tables. When
+ * the cache files exceed 256 MiB in total, or the number of bytes set with the {@value #cacheSizeProperty} system
+ * property, the least recently used files are deleted.
+ */
+public class ParseTableTermCache {
+    private static final ILogger logger = LoggerUtils.logger(ParseTableTermCache.class);
+
+    public static final String cacheDirProperty = "spoofax.parsetable.cache";
+    public static final String cacheSizeProperty = "spoofax.parsetable.cache.size";
+
+    private static final long defaultMaxCacheSize = 256L * 1024 * 1024;
+    private static final Set<PosixFilePermission> ownerOnly = PosixFilePermissions.fromString("rwx------");
+
+    private static final int magic = 0x53505443; // SPTC
+    private static final int version = 1;
+    private static final int hashLength = 32;
+
+    private static final byte tagRef = 0;
+    private static final byte tagAppl = 1;
+    private static final byte tagInt = 2;
+    private static final byte tagReal = 3;
+    private static final byte tagString = 4;
+    private static final byte tagList = 5;
+    private static final byte tagTuple = 6;
+    private static final byte annotationsFlag = (byte) 0x80;
+
+
+    /**
+     * Reads the parse table term from given parse table file, using the on-disk cache if possible.
+     *
+     * @param resource
+     *            Parse table file in ATerm format.
+     * @param termFactory
+     *            Term factory to create terms with.
+     * @return Parse table term.
+     * @throws IOException
+     *             When reading the parse table file fails.
+     */
+    public static IStrategoTerm read(FileObject resource, ITermFactory termFactory) throws IOException {
+        final byte[] bytes;
+        try(final InputStream stream = resource.getContent().getInputStream()) {
+            bytes = IOUtils.toByteArray(stream);
+        }
+
+        final @Nullable Path cacheDir = cacheDir();
+        if(cacheDir == null || !prepareCacheDir(cacheDir)) {
+            return parse(bytes, termFactory);
+        }
+
+        final byte[] hash = hash(bytes);
+        final Path cacheFile = cacheDir.resolve(toHex(hash) + ".bin");
+        if(Files.isRegularFile(cacheFile)) {
+            try {
+                final IStrategoTerm term = readCacheFile(cacheFile, hash, termFactory);
+                if(term != null) {
+                    logger.debug("Read parse table {} from cache {}", resource, cacheFile);
+                    touch(cacheFile);
+                    return term;
+                }
+                logger.debug("Ignoring outdated parse table cache {}", cacheFile);
+            } catch(IOException | RuntimeException e) {
+                logger.warn("Reading parse table cache {} failed, parsing {} instead", e, cacheFile, resource);
+            }
+        }
+
+        final IStrategoTerm term = parse(bytes, termFactory);
+        try {
+            writeCacheFile(cacheFile, hash, term);
+            cleanup(cacheDir, cacheFile);
+        } catch(IOException | RuntimeException e) {
+            logger.warn("Writing parse table cache {} failed", e, cacheFile);
+        }
+        return term;
+    }
+
+
+    private static IStrategoTerm parse(byte[] bytes, ITermFactory termFactory) throws IOException {
+        final TermReader termReader = new TermReader(termFactory);
+        return termReader.parseFromStream(new ByteArrayInputStream(bytes));
+    }
+
+    private static @Nullable Path cacheDir() {
+        final String dir = System.getProperty(cacheDirProperty);
+        if(dir == null || dir.isEmpty()) {
+            return null;
+        }
+        return Paths.get(dir);
+    }
+
+    private static long maxCacheSize() {
+        final String size = System.getProperty(cacheSizeProperty);
+        if(size == null) {
+            return defaultMaxCacheSize;
+        }
+        try {
+            return Long.parseLong(size);
+        } catch(NumberFormatException e) {
+            logger.warn("Ignoring invalid parse table cache size {}", size);
+            return defaultMaxCacheSize;
+        }
+    }
+
+    /**
+     * Creates given cache directory if needed, and checks that it can be trusted.
+     *
+     * @return True if the cache directory can be used, false otherwise.
+     */
+    private static boolean prepareCacheDir(Path dir) {
+        final boolean posix = dir.getFileSystem().supportedFileAttributeViews().contains("posix");
+        try {
+            if(!Files.isDirectory(dir)) {
+                if(posix) {
+                    Files.createDirectories(dir, PosixFilePermissions.asFileAttribute(ownerOnly));
+                } else {
+                    Files.createDirectories(dir);
+                }
+            }
+            if(posix) {
+                final UserPrincipal user = dir.getFileSystem().getUserPrincipalLookupService()
+                    .lookupPrincipalByName(System.getProperty("user.name"));
+                if(!user.equals(Files.getOwner(dir))) {
+                    logger.warn("Not using parse table cache {}, it is owned by another user", dir);
+                    return false;
+                }
+                final Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(dir);
+                if(permissions.contains(PosixFilePermission.GROUP_WRITE)
+                    || permissions.contains(PosixFilePermission.OTHERS_WRITE)) {
+                    logger.warn("Not using parse table cache {}, it is writable by other users", dir);
+                    return false;
+                }
+            }
+            return true;
+        } catch(IOException | RuntimeException e) {
+            logger.warn("Preparing parse table cache {} failed, not using the cache", e, dir);
+            return false;
+        }
+    }
+
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch(IOException e) {
+            // Only affects which cache files are deleted first.
+        }
+    }
+
+    /**
+     * Deletes the least recently used cache files until their total size does not exceed the maximum cache size, but
+     * never deletes given cache file that was just written.
+     */
+    private static void cleanup(Path dir, Path keep) throws IOException {
+        final List<CacheFile> files = new ArrayList<>();
+        try(final DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*.bin")) {
+            for(Path file : stream) {
+                try {
+                    final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    files.add(new CacheFile(file, attributes.lastModifiedTime(), attributes.size()));
+                } catch(IOException e) {
+                    // Deleted concurrently, skip.
+                }
+            }
+        }
+        files.sort(Comparator.comparing((CacheFile file) -> file.modified).reversed());
+
+        final long maxSize = maxCacheSize();
+        long size = 0;
+        for(CacheFile file : files) {
+            size += file.size;
+            if(size > maxSize && !file.path.equals(keep)) {
+                logger.debug("Deleting least recently used parse table cache {}", file.path);
+                Files.deleteIfExists(file.path);
+            }
+        }
+    }
+
+    private static byte[] hash(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch(NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        final StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for(byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+
+    private static @Nullable IStrategoTerm readCacheFile(Path file, byte[] hash, ITermFactory termFactory)
+        throws IOException {
+        // Read the whole file into the heap, since mapped files cannot be unmapped explicitly and stay open until the
+        // buffer is garbage collected, which prevents replacing or deleting cache files on some platforms.
+        final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        try {
+            if(buffer.getInt() != magic || buffer.getInt() != version) {
+                return null;
+            }
+            final byte[] fileHash = new byte[hashLength];
+            buffer.get(fileHash);
+            if(!Arrays.equals(hash, fileHash)) {
+                return null;
+            }
+            final IStrategoTerm term = new Decoder(buffer, termFactory).read();
+            if(buffer.hasRemaining()) {
+                throw new IOException("Unexpected trailing data in parse table cache");
+            }
+            return term;
+        } catch(BufferUnderflowException e) {
+            throw new IOException("Parse table cache is truncated", e);
+        }
+    }
+
+    private static void writeCacheFile(Path file, byte[] hash, IStrategoTerm term) throws IOException {
+        Files.createDirectories(file.getParent());
+        // Write to a temporary file first and move it into place, such that readers never see partial cache files.
+        final Path tempFile = Files.createTempFile(file.getParent(), "table", ".tmp");
+        try {
+            try(final DataOutputStream output =
+                new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                output.writeInt(magic);
+                output.writeInt(version);
+                output.write(hash);
+                new Encoder(output).write(term);
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+
+    private static class CacheFile {
+        public final Path path;
+        public final FileTime modified;
+        public final long size;
+
+
+        public CacheFile(Path path, FileTime modified, long size) {
+            this.path = path;
+            this.modified = modified;
+            this.size = size;
+        }
+    }
+
+
+    /**
+     * Encodes terms in pre-order. Every term gets an index in the order it is written, and terms that are written more
+     * than once are written as references to that index. Annotations, when present, are written as a list directly
+     * after the annotated term.
+     */
+    private static class Encoder {
+        private final DataOutputStream output;
+        private final Map<IStrategoTerm, Integer> written = new IdentityHashMap<>();
+
+
+        public Encoder(DataOutputStream output) {
+            this.output = output;
+        }
+
+
+        public void write(IStrategoTerm term) throws IOException {
+            final Integer ref = written.get(term);
+            if(ref != null) {
+                output.writeByte(tagRef);
+                writeVarInt(ref);
+                return;
+            }
+
+            final IStrategoList annotations = term.getAnnotations();
+            final boolean hasAnnotations = annotations != null && !annotations.isEmpty();
+            final byte flags = hasAnnotations ? annotationsFlag : 0;
+            written.put(term, written.size());
+
+            if(TermUtils.isAppl(term)) {
+                final IStrategoConstructor constructor = ((IStrategoAppl) term).getConstructor();
+                output.writeByte(tagAppl | flags);
+                writeString(constructor.getName());
+                writeSubterms(term);
+            } else if(TermUtils.isInt(term)) {
+                output.writeByte(tagInt | flags);
+                output.writeInt(TermUtils.toJavaInt(term));
+            } else if(TermUtils.isReal(term)) {
+                output.writeByte(tagReal | flags);
+                output.writeDouble(TermUtils.toJavaReal(term));
+            } else if(TermUtils.isString(term)) {
+                output.writeByte(tagString | flags);
+                writeString(TermUtils.toJavaString(term));
+            } else if(TermUtils.isList(term)) {
+                output.writeByte(tagList | flags);
+                writeSubterms(term);
+            } else if(TermUtils.isTuple(term)) {
+                output.writeByte(tagTuple | flags);
+                writeSubterms(term);
+            } else {
+                throw new IOException("Cannot encode term " + term + " in parse table cache");
+            }
+
+            if(hasAnnotations) {
+                write(annotations);
+            }
+        }
+
+        private void writeSubterms(IStrategoTerm term) throws IOException {
+            final List<IStrategoTerm> subterms = term.getSubterms();
+            writeVarInt(subterms.size());
+            for(IStrategoTerm subterm : subterms) {
+                write(subterm);
+            }
+        }
+
+        private void writeString(String string) throws IOException {
+            final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            output.write(bytes);
+        }
+
+        private void writeVarInt(int value) throws IOException {
+            while((value & ~0x7F) != 0) {
+                output.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            output.writeByte(value);
+        }
+    }
+
+    /**
+     * Decodes terms written by {@link Encoder}.
+     */
+    private static class Decoder {
+        private final ByteBuffer input;
+        private final ITermFactory termFactory;
+        private final List<IStrategoTerm> read = new ArrayList<>();
+
+
+        public Decoder(ByteBuffer input, ITermFactory termFactory) {
+            this.input = input;
+            this.termFactory = termFactory;
+        }
+
+
+        public IStrategoTerm read() throws IOException {
+            final byte header = input.get();
+            final byte tag = (byte) (header & ~annotationsFlag);
+            if(tag == tagRef) {
+                final int ref = readVarInt();
+                if(ref < 0 || ref >= read.size()) {
+                    throw new IOException("Invalid term reference in parse table cache");
+                }
+                return read.get(ref);
+            }
+
+            // Reserve the index of this term before reading subterms, to match the pre-order numbering of the encoder.
+            final int index = read.size();
+            read.add(null);
+
+            IStrategoTerm term;
+            switch(tag) {
+                case tagAppl: {
+                    final String name = readString();
+                    final IStrategoTerm[] subterms = readSubterms();
+                    final IStrategoConstructor constructor = termFactory.makeConstructor(name, subterms.length);
+                    term = termFactory.makeAppl(constructor, subterms);
+                    break;
+                }
+                case tagInt:
+                    term = termFactory.makeInt(input.getInt());
+                    break;
+                case tagReal:
+                    term = termFactory.makeReal(input.getDouble());
+                    break;
+                case tagString:
+                    term = termFactory.makeString(readString());
+                    break;
+                case tagList:
+                    term = termFactory.makeList(readSubterms());
+                    break;
+                case tagTuple:
+                    term = termFactory.makeTuple(readSubterms());
+                    break;
+                default:
+                    throw new IOException("Invalid term tag " + tag + " in parse table cache");
+            }
+            read.set(index, term);
+
+            if((header & annotationsFlag) != 0) {
+                final IStrategoTerm annotations = read();
+                if(!TermUtils.isList(annotations)) {
+                    throw new IOException("Invalid annotations in parse table cache");
+                }
+                term = termFactory.annotateTerm(term, (IStrategoList) annotations);
+                read.set(index, term);
+            }
+            return term;
+        }
+
+        private IStrategoTerm[] readSubterms() throws IOException {
+            final int size = readVarInt();
+            final IStrategoTerm[] subterms = new IStrategoTerm[size];
+            for(int i = 0; i < size; ++i) {
+                subterms[i] = read();
+            }
+            return subterms;
+        }
+
+        private String readString() throws IOException {
+            final int length = readVarInt();
+            final byte[] bytes = new byte[length];
+            input.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private int readVarInt() throws IOException {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if(shift > 28) {
+                    throw new IOException("Invalid variable-length integer in parse table cache");
+                }
+                b = input.get();
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while((b & 0x80) != 0);
+            return value;
+        }
+    }
+}
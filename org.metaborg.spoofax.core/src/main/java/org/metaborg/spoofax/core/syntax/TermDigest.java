@@ -0,0 +1,92 @@
+package org.metaborg.spoofax.core.syntax;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.spoofax.interpreter.terms.IStrategoAppl;
+import org.spoofax.interpreter.terms.IStrategoConstructor;
+import org.spoofax.interpreter.terms.IStrategoInt;
+import org.spoofax.interpreter.terms.IStrategoList;
+import org.spoofax.interpreter.terms.IStrategoReal;
+import org.spoofax.interpreter.terms.IStrategoString;
+import org.spoofax.interpreter.terms.IStrategoTerm;
+import org.spoofax.interpreter.terms.IStrategoTuple;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * Computes 128-bit structural digests of terms. Two terms that are equal have the same digest, and unlike
+ * {@link IStrategoTerm#hashCode()}, terms that differ have the same digest with negligible probability. Digests cover
+ * constructors, values, subterms, and annotations, but not attachments such as origins.
+ */
+public class TermDigest {
+    private static final HashFunction function = Hashing.murmur3_128();
+
+    private static final byte appl = 1;
+    private static final byte tuple = 2;
+    private static final byte list = 3;
+    private static final byte integer = 4;
+    private static final byte real = 5;
+    private static final byte string = 6;
+    private static final byte other = 7;
+
+
+    /**
+     * @return Structural digest of given term.
+     */
+    public static HashCode digest(IStrategoTerm term) {
+        final Hasher hasher = function.newHasher();
+        put(hasher, term);
+        return hasher.hash();
+    }
+
+
+    private static void put(Hasher hasher, IStrategoTerm term) {
+        if(term instanceof IStrategoAppl) {
+            final IStrategoConstructor constructor = ((IStrategoAppl) term).getConstructor();
+            hasher.putByte(appl);
+            putString(hasher, constructor.getName());
+            putSubterms(hasher, term);
+        } else if(term instanceof IStrategoTuple) {
+            hasher.putByte(tuple);
+            putSubterms(hasher, term);
+        } else if(term instanceof IStrategoList) {
+            hasher.putByte(list);
+            putSubterms(hasher, term);
+        } else if(term instanceof IStrategoInt) {
+            hasher.putByte(integer);
+            hasher.putInt(((IStrategoInt) term).intValue());
+        } else if(term instanceof IStrategoReal) {
+            hasher.putByte(real);
+            hasher.putDouble(((IStrategoReal) term).realValue());
+        } else if(term instanceof IStrategoString) {
+            hasher.putByte(string);
+            putString(hasher, ((IStrategoString) term).stringValue());
+        } else {
+            hasher.putByte(other);
+            hasher.putInt(term.hashCode());
+            putSubterms(hasher, term);
+        }
+
+        putTerms(hasher, term.getAnnotations().getSubterms());
+    }
+
+    private static void putSubterms(Hasher hasher, IStrategoTerm term) {
+        putTerms(hasher, term.getSubterms());
+    }
+
+    private static void putTerms(Hasher hasher, List<IStrategoTerm> terms) {
+        hasher.putInt(terms.size());
+        for(IStrategoTerm term : terms) {
+            put(hasher, term);
+        }
+    }
+
+    private static void putString(Hasher hasher, String value) {
+        hasher.putInt(value.length());
+        hasher.putString(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,191 @@
+package org.metaborg.spoofax.core.tracing;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import org.metaborg.core.source.ISourceRegion;
+import org.spoofax.interpreter.terms.IStrategoTerm;
+import org.spoofax.jsglr.client.imploder.IToken;
+import org.spoofax.jsglr.client.imploder.ImploderAttachment;
+import org.spoofax.terms.attachments.OriginAttachment;
+import org.spoofax.terms.util.TermUtils;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Index from source regions to the terms of an AST. Terms are numbered in pre-order, and terms that have a source
+ * region are sorted by their start offset, with a tree of maximum end offsets on top. Finding the terms that contain,
+ * or are within, a region then takes time logarithmic in the size of the AST, plus the number of terms found.
+ */
+class RegionIndex {
+    private final IStrategoTerm[] terms;
+    private final int[] subtreeEnds;
+    private final int[] postOrder;
+    private final boolean[] singletonLists;
+
+    private final int[] sorted;
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] maxEnds;
+    private final int leaves;
+
+    private int preCount;
+    private int postCount;
+
+
+    public RegionIndex(IStrategoTerm ast) {
+        final int size = count(ast);
+        this.terms = new IStrategoTerm[size];
+        this.subtreeEnds = new int[size];
+        this.postOrder = new int[size];
+        this.singletonLists = new boolean[size];
+
+        final long[] keys = new long[size];
+        final int[] termEnds = new int[size];
+        number(ast);
+        int regions = 0;
+        for(int i = 0; i < size; ++i) {
+            final IStrategoTerm term = terms[i];
+            singletonLists[i] = TermUtils.isList(term, 1);
+            final IStrategoTerm located = origin(term);
+            final IToken left = ImploderAttachment.getLeftToken(located);
+            final IToken right = ImploderAttachment.getRightToken(located);
+            if(left == null || right == null) {
+                continue;
+            }
+            keys[regions++] = ((long) left.getStartOffset() << 32) | i;
+            termEnds[i] = right.getEndOffset();
+        }
+        Arrays.sort(keys, 0, regions);
+
+        this.sorted = new int[regions];
+        this.starts = new int[regions];
+        this.ends = new int[regions];
+        for(int i = 0; i < regions; ++i) {
+            final int index = (int) keys[i];
+            sorted[i] = index;
+            starts[i] = (int) (keys[i] >> 32);
+            ends[i] = termEnds[index];
+        }
+
+        int capacity = 1;
+        while(capacity < regions) {
+            capacity <<= 1;
+        }
+        this.leaves = capacity;
+        this.maxEnds = new int[2 * leaves];
+        Arrays.fill(maxEnds, Integer.MIN_VALUE);
+        System.arraycopy(ends, 0, maxEnds, leaves, regions);
+        for(int i = leaves - 1; i > 0; --i) {
+            maxEnds[i] = Math.max(maxEnds[2 * i], maxEnds[2 * i + 1]);
+        }
+    }
+
+
+    /**
+     * @return Terms whose region contains given region, in bottom-up order.
+     */
+    public List<IStrategoTerm> containing(ISourceRegion region) {
+        final int startOffset = region.startOffset();
+        final int endOffset = Math.max(startOffset, region.endOffset());
+        final int count = upperBound(startOffset);
+        final List<Integer> found = Lists.newArrayList();
+        collectContaining(1, 0, leaves, count, endOffset, found);
+        found.sort((l, r) -> Integer.compare(postOrder[l], postOrder[r]));
+        final List<IStrategoTerm> result = Lists.newArrayListWithCapacity(found.size());
+        for(int index : found) {
+            result.add(terms[index]);
+        }
+        return result;
+    }
+
+    /**
+     * @return Outermost terms whose region is within given region, skipping singleton lists, in top-down order.
+     */
+    public List<IStrategoTerm> within(ISourceRegion region) {
+        final int startOffset = region.startOffset();
+        final int endOffset = region.endOffset();
+        final int from = upperBound(startOffset - 1);
+        final int to = upperBound(endOffset);
+        if(from >= to) {
+            return Lists.newArrayList();
+        }
+        final int[] found = new int[to - from];
+        int count = 0;
+        for(int i = from; i < to; ++i) {
+            final int index = sorted[i];
+            if(ends[i] <= endOffset && !singletonLists[index]) {
+                found[count++] = index;
+            }
+        }
+        Arrays.sort(found, 0, count);
+
+        final List<IStrategoTerm> result = Lists.newArrayList();
+        int coveredUntil = -1;
+        for(int i = 0; i < count; ++i) {
+            final int index = found[i];
+            if(index <= coveredUntil) {
+                continue;
+            }
+            result.add(terms[index]);
+            coveredUntil = subtreeEnds[index];
+        }
+        return result;
+    }
+
+
+    private void collectContaining(int node, int nodeFrom, int nodeTo, int count, int endOffset, List<Integer> found) {
+        if(nodeFrom >= count || maxEnds[node] < endOffset) {
+            return;
+        }
+        if(nodeTo - nodeFrom == 1) {
+            found.add(sorted[nodeFrom]);
+            return;
+        }
+        final int middle = (nodeFrom + nodeTo) >>> 1;
+        collectContaining(2 * node, nodeFrom, middle, count, endOffset, found);
+        collectContaining(2 * node + 1, middle, nodeTo, count, endOffset, found);
+    }
+
+    /**
+     * @return Number of sorted terms whose start offset is less than or equal to given offset.
+     */
+    private int upperBound(int offset) {
+        int low = 0;
+        int high = starts.length;
+        while(low < high) {
+            final int middle = (low + high) >>> 1;
+            if(starts[middle] <= offset) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int count(IStrategoTerm term) {
+        int count = 1;
+        for(IStrategoTerm subterm : term.getSubterms()) {
+            count += count(subterm);
+        }
+        return count;
+    }
+
+    private void number(IStrategoTerm term) {
+        final int index = preCount++;
+        terms[index] = term;
+        for(IStrategoTerm subterm : term.getSubterms()) {
+            number(subterm);
+        }
+        subtreeEnds[index] = preCount - 1;
+        postOrder[index] = postCount++;
+    }
+
+    private static IStrategoTerm origin(IStrategoTerm term) {
+        final @Nullable IStrategoTerm origin = OriginAttachment.getOrigin(term);
+        return origin != null ? origin : term;
+    }
+}
@@ -21,6 +21,7 @@ import org.metaborg.core.source.SourceRegion;
 import org.metaborg.core.tracing.Resolution;
 import org.metaborg.core.tracing.ResolutionTarget;
 import org.metaborg.spoofax.core.stratego.IStrategoRuntimeService;
+import org.metaborg.spoofax.core.stratego.PooledStrategoRuntime;
 import org.metaborg.spoofax.core.tracing.TracingCommon.TermWithRegion;
 import org.metaborg.spoofax.core.unit.ISpoofaxAnalyzeUnit;
 import org.metaborg.spoofax.core.unit.ISpoofaxParseUnit;
@@ -87,13 +88,10 @@ public class ResolverService implements ISpoofaxResolverService {
         final ILanguageComponent contributor = facetContrib.contributor;
         final String strategy = facet.strategyName;
 
-        try {
-            final HybridInterpreter interpreter;
-            if(context == null) {
-                interpreter = strategoRuntimeService.runtime(contributor, source);
-            } else {
-                interpreter = strategoRuntimeService.runtime(contributor, context);
-            }
+        try(PooledStrategoRuntime runtime = context == null
+            ? strategoRuntimeService.pooledRuntime(contributor, source)
+            : strategoRuntimeService.pooledRuntime(contributor, context)) {
+            final HybridInterpreter interpreter = runtime.get();
             final Iterable<IStrategoTerm> inRegion = tracingService.fragments(result, new SourceRegion(offset));
             final TermWithRegion tuple =
                 common.outputs(termFactory, interpreter, source, source, result.ast(), inRegion, strategy);
@@ -116,9 +114,9 @@ public class ResolverService implements ISpoofaxResolverService {
         final ResolverFacet facet = facetContrib.facet;
         final String strategy = facet.strategyName;
 
-        try {
-            final HybridInterpreter interpreter =
-                strategoRuntimeService.runtime(facetContrib.contributor, context);
+        try(PooledStrategoRuntime runtime =
+            strategoRuntimeService.pooledRuntime(facetContrib.contributor, context)) {
+            final HybridInterpreter interpreter = runtime.get();
             final Iterable<IStrategoTerm> inRegion = tracingService.fragments(result, new SourceRegion(offset));
             final TermWithRegion tuple;
             try(IClosableLock _lock = context.read()) {
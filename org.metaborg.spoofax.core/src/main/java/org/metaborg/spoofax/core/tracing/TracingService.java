@@ -1,7 +1,5 @@
 package org.metaborg.spoofax.core.tracing;
 
-import java.util.Collection;
-
 import org.apache.commons.vfs2.FileObject;
 import org.metaborg.core.MetaborgRuntimeException;
 import org.metaborg.core.resource.IResourceService;
@@ -18,17 +16,28 @@ import org.spoofax.interpreter.terms.IStrategoTerm;
 import org.spoofax.jsglr.client.imploder.IToken;
 import org.spoofax.jsglr.client.imploder.ImploderAttachment;
 import org.spoofax.terms.attachments.OriginAttachment;
-import org.spoofax.terms.util.TermUtils;
-import org.spoofax.terms.visitor.AStrategoTermVisitor;
-import org.spoofax.terms.visitor.IStrategoTermVisitor;
-import org.spoofax.terms.visitor.StrategoTermVisitee;
 
-import com.google.common.collect.Lists;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.inject.Inject;
 
 public class TracingService implements ISpoofaxTracingService {
+    private static final long maxIndices = 64;
+
     private final IResourceService resourceService;
 
+    /**
+     * Region indices of ASTs, built on first use. Keys are weak and compared by identity, such that the index of an AST
+     * lives as long as the parse, analyze, or transform unit that holds the AST.
+     */
+    private final LoadingCache<IStrategoTerm, RegionIndex> indices = CacheBuilder.newBuilder().weakKeys()
+        .maximumSize(maxIndices).build(new CacheLoader<IStrategoTerm, RegionIndex>() {
+            @Override public RegionIndex load(IStrategoTerm ast) {
+                return new RegionIndex(ast);
+            }
+        });
+
 
     @Inject public TracingService(IResourceService resourceService) {
         this.resourceService = resourceService;
@@ -91,19 +100,7 @@ public class TracingService implements ISpoofaxTracingService {
         if(ast == null || region == null) {
             return Iterables2.empty();
         }
-        final Collection<IStrategoTerm> parsed = Lists.newLinkedList();
-        final IStrategoTermVisitor visitor = new AStrategoTermVisitor() {
-            @Override public boolean visit(IStrategoTerm term) {
-                final ISourceLocation location = location(term);
-                if(location != null && location.region().contains(region)) {
-                    parsed.add(term);
-                    return false;
-                }
-                return true;
-            }
-        };
-        StrategoTermVisitee.bottomup(visitor, ast);
-        return parsed;
+        return indices.getUnchecked(ast).containing(region);
     }
 
 
@@ -137,23 +134,6 @@ public class TracingService implements ISpoofaxTracingService {
         if(ast == null || region == null) {
             return Iterables2.empty();
         }
-        final Collection<IStrategoTerm> parsed = Lists.newLinkedList();
-        final IStrategoTermVisitor visitor = new AStrategoTermVisitor() {
-            @Override public boolean visit(IStrategoTerm term) {
-                if(TermUtils.isList(term, 1)) {
-                    // try element instead of singleton list
-                    return true;
-                }
-                final ISourceLocation location = location(term);
-                if(location != null && region.contains(location.region())) {
-                    parsed.add(term);
-                    // no need to check the children, as this term is already within the given region
-                    return false;
-                }
-                return true;
-            }
-        };
-        StrategoTermVisitee.topdown(visitor, ast);
-        return parsed;
+        return indices.getUnchecked(ast).within(region);
     }
 }
@@ -1,14 +1,23 @@
 package org.metaborg.spoofax.core.transform;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.vfs2.FileContent;
 import org.apache.commons.vfs2.FileObject;
 import org.metaborg.core.MetaborgException;
 import org.metaborg.core.action.ITransformAction;
@@ -25,6 +34,7 @@ import org.metaborg.core.unit.IUnit;
 import org.metaborg.spoofax.core.action.TransformAction;
 import org.metaborg.spoofax.core.stratego.IStrategoCommon;
 import org.metaborg.spoofax.core.stratego.IStrategoRuntimeService;
+import org.metaborg.spoofax.core.stratego.PooledStrategoRuntime;
 import org.metaborg.spoofax.core.tracing.ISpoofaxTracingService;
 import org.metaborg.spoofax.core.unit.ISpoofaxAnalyzeUnit;
 import org.metaborg.spoofax.core.unit.ISpoofaxParseUnit;
@@ -89,24 +99,17 @@ public class StrategoTransformer implements IStrategoTransformer {
     @Override public Collection<ISpoofaxTransformUnit<ISpoofaxParseUnit>> transformAllParsed(
         Iterable<ISpoofaxParseUnit> inputs, IContext context, TransformActionContrib action, ITransformConfig config)
         throws TransformException {
-        final int size = Iterables.size(inputs);
-        final Collection<ISpoofaxTransformUnit<ISpoofaxParseUnit>> transformUnits =
-            Lists.newArrayListWithCapacity(size);
         for(ISpoofaxParseUnit input : inputs) {
             if(!input.valid()) {
                 throw new TransformException("Cannot transform parse unit " + input + ", it is not valid");
             }
-            transformUnits.add(transform(input, context, action, input.source(), input.ast(), config));
         }
-        return transformUnits;
+        return transformAll(inputs, context, action, config, ISpoofaxParseUnit::ast);
     }
 
     @Override public Collection<ISpoofaxTransformUnit<ISpoofaxAnalyzeUnit>> transformAllAnalyzed(
         Iterable<ISpoofaxAnalyzeUnit> inputs, IContext context, TransformActionContrib action, ITransformConfig config)
         throws TransformException {
-        final int size = Iterables.size(inputs);
-        final Collection<ISpoofaxTransformUnit<ISpoofaxAnalyzeUnit>> transformUnits =
-            Lists.newArrayListWithCapacity(size);
         for(ISpoofaxAnalyzeUnit input : inputs) {
             if(!input.valid()) {
                 throw new TransformException("Cannot transform analyze unit " + input + ", it is not valid");
@@ -114,12 +117,92 @@ public class StrategoTransformer implements IStrategoTransformer {
             if(!input.hasAst()) {
                 throw new TransformException("Cannot transform analyze unit " + input + ", it has no AST");
             }
-            transformUnits.add(transform(input, context, action, input.source(), input.ast(), config));
         }
-        return transformUnits;
+        return transformAll(inputs, context, action, config, ISpoofaxAnalyzeUnit::ast);
     }
 
 
+    private <I extends IUnit> Collection<ISpoofaxTransformUnit<I>> transformAll(Iterable<I> inputs,
+        IContext context, TransformActionContrib action, ITransformConfig config, Function<I, IStrategoTerm> ast)
+        throws TransformException {
+        final int size = Iterables.size(inputs);
+        final Collection<ISpoofaxTransformUnit<I>> transformUnits = Lists.newArrayListWithCapacity(size);
+        final int threads = Math.min(config.threads(), size);
+        if(threads <= 1) {
+            for(I input : inputs) {
+                transformUnits.add(transform(input, context, action, input.source(), ast.apply(input), config));
+            }
+            return transformUnits;
+        }
+
+        // Submit all transformations up front, each borrows a pooled Stratego runtime. Results are consumed in the
+        // order of the inputs, and failures are aggregated into the first failure, such that the outcome is
+        // deterministic.
+        logger.debug("Transforming {} units with {} threads", size, threads);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<ISpoofaxTransformUnit<I>>> transformJobs = Lists.newArrayListWithCapacity(size);
+            for(I input : inputs) {
+                transformJobs.add(
+                    executor.submit(() -> transform(input, context, action, input.source(), ast.apply(input), config)));
+            }
+
+            TransformException failure = null;
+            for(Future<ISpoofaxTransformUnit<I>> transformJob : transformJobs) {
+                try {
+                    transformUnits.add(transformJob.get());
+                } catch(ExecutionException e) {
+                    final Throwable cause = e.getCause();
+                    if(cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    final TransformException exception;
+                    if(cause instanceof TransformException) {
+                        exception = (TransformException) cause;
+                    } else {
+                        exception = new TransformException("Transformation failed unexpectedly", cause);
+                    }
+                    if(failure == null) {
+                        failure = exception;
+                    } else {
+                        failure.addSuppressed(exception);
+                    }
+                } catch(InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new TransformException("Transformation was interrupted", e);
+                }
+            }
+            if(failure != null) {
+                throw failure;
+            }
+            return transformUnits;
+        } finally {
+            shutdownAndAwait(executor);
+        }
+    }
+
+    /**
+     * Shuts down given executor, cancelling transformations that have not started yet, and waits for running
+     * transformations to finish. Running Stratego strategies cannot be interrupted, and would otherwise keep writing
+     * output files after a transformation has been aborted.
+     */
+    private static void shutdownAndAwait(ExecutorService executor) {
+        executor.shutdownNow();
+        boolean interrupted = false;
+        while(true) {
+            try {
+                if(executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS)) {
+                    break;
+                }
+            } catch(InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if(interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     private <I extends IUnit> ISpoofaxTransformUnit<I> transform(I input, IContext context,
         TransformActionContrib actionContribution, FileObject source, IStrategoTerm term, ITransformConfig config)
         throws TransformException {
@@ -145,10 +228,11 @@ public class StrategoTransformer implements IStrategoTransformer {
         // Get input term
         final IStrategoTerm inputTerm = common.builderInputTerm(term, selectedTerm, source, location);
 
-        // Get Stratego runtime
-        final HybridInterpreter runtime;
+        // Borrow Stratego runtime from the pool, such that parallel transformations reuse one runtime per thread,
+        // instead of cloning a new runtime for every unit.
+        final PooledStrategoRuntime runtime;
         try {
-            runtime = strategoRuntimeService.runtime(component, context);
+            runtime = strategoRuntimeService.pooledRuntime(component, context);
         } catch(MetaborgException e) {
             throw new TransformException("Transformation failed unexpectedly; cannot get Stratego interpreter", e);
         }
@@ -158,9 +242,12 @@ public class StrategoTransformer implements IStrategoTransformer {
         final Timer timer = new Timer(true);
         final IStrategoTerm outputTerm;
         try {
-            outputTerm = common.invoke(runtime, inputTerm, action.strategy);
+            final HybridInterpreter interpreter = runtime.get();
+            outputTerm = common.invoke(interpreter, inputTerm, action.strategy);
         } catch(MetaborgException e) {
             throw new TransformException(e.getMessage(), e.getCause());
+        } finally {
+            runtime.close();
         }
         final long duration = timer.stop();
         if(outputTerm == null) {
@@ -242,18 +329,54 @@ public class StrategoTransformer implements IStrategoTransformer {
             final String resourceString = TermUtils.toJavaString(resourceTerm);
             // writing to output file is allowed
             FileObject output;
+            boolean changed;
             if(!config.dryRun()) {
                 final String resultContents = common.toString(contentTerm);
+                final byte[] bytes = resultContents.getBytes(Charset.defaultCharset());
                 output = resourceService.resolve(location, resourceString);
-                try(OutputStream stream = output.getContent().getOutputStream()) {
-                    IOUtils.write(resultContents, stream, Charset.defaultCharset());
-                } catch(IOException e) {
-                    logger.error("Error occurred while writing output file", e);
+                if(!config.writeIfChanged() || !hasContent(output, bytes)) {
+                    changed = write(output, bytes);
+                } else {
+                    logger.trace("Skipping write of unchanged output file {}", output);
+                    changed = false;
                 }
             } else {
                 output = null;
+                changed = false;
+            }
+            return new TransformOutput(resourceString, output, contentTerm, changed);
+        }
+    }
+
+    /**
+     * Writes given bytes to given resource.
+     *
+     * @return True if the resource was written, false if writing failed.
+     */
+    private static boolean write(FileObject resource, byte[] bytes) {
+        try(OutputStream stream = resource.getContent().getOutputStream()) {
+            stream.write(bytes);
+        } catch(IOException e) {
+            logger.error("Error occurred while writing output file", e);
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean hasContent(FileObject resource, byte[] bytes) {
+        try {
+            if(!resource.exists()) {
+                return false;
+            }
+            final FileContent content = resource.getContent();
+            if(content.getSize() != bytes.length) {
+                return false;
+            }
+            try(InputStream stream = content.getInputStream()) {
+                return Arrays.equals(IOUtils.toByteArray(stream), bytes);
             }
-            return new TransformOutput(resourceString, output, contentTerm);
+        } catch(IOException e) {
+            return false;
         }
     }
 
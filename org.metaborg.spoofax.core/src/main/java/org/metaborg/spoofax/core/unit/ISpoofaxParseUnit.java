@@ -5,6 +5,8 @@ import javax.annotation.Nullable;
 import org.metaborg.core.syntax.IParseUnit;
 import org.spoofax.interpreter.terms.IStrategoTerm;
 
+import com.google.common.hash.HashCode;
+
 /**
  * Spoofax-specific extension of a parse unit that adds an {@link IStrategoTerm} AST.
  */
@@ -15,6 +17,12 @@ public interface ISpoofaxParseUnit extends IParseUnit {
      */
     @Nullable IStrategoTerm ast();
 
+    /**
+     * @return Structural digest of {@link #ast()}, computed once per parse, or null if there is no AST. ASTs with equal
+     *         digests are equal with overwhelming probability.
+     */
+    @Nullable HashCode astDigest();
+
     /**
      * {@inheritDoc}
      */
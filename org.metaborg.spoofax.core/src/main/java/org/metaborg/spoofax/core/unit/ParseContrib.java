@@ -4,9 +4,12 @@ import javax.annotation.Nullable;
 
 import org.metaborg.core.messages.IMessage;
 import org.metaborg.core.unit.IUnitContrib;
+import org.metaborg.spoofax.core.syntax.TermDigest;
 import org.metaborg.util.iterators.Iterables2;
 import org.spoofax.interpreter.terms.IStrategoTerm;
 
+import com.google.common.hash.HashCode;
+
 public class ParseContrib implements IUnitContrib {
     public final boolean valid;
     public final boolean success;
@@ -15,6 +18,8 @@ public class ParseContrib implements IUnitContrib {
     public final Iterable<IMessage> messages;
     public final long duration;
 
+    private volatile @Nullable HashCode astDigest;
+
     public ParseContrib(boolean valid, boolean success, boolean isAmbiguous, @Nullable IStrategoTerm ast, Iterable<IMessage> messages,
         long duration) {
         this.valid = valid;
@@ -37,4 +42,19 @@ public class ParseContrib implements IUnitContrib {
     public boolean isAmbiguous() {
         return isAmbiguous;
     }
+
+    /**
+     * @return Structural digest of the AST, computed on first use, or null if there is no AST.
+     */
+    public @Nullable HashCode astDigest() {
+        if(ast == null) {
+            return null;
+        }
+        HashCode digest = astDigest;
+        if(digest == null) {
+            digest = TermDigest.digest(ast);
+            astDigest = digest;
+        }
+        return digest;
+    }
 }
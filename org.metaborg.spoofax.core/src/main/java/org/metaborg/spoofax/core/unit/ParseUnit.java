@@ -3,6 +3,8 @@ package org.metaborg.spoofax.core.unit;
 import org.metaborg.core.messages.IMessage;
 import org.spoofax.interpreter.terms.IStrategoTerm;
 
+import com.google.common.hash.HashCode;
+
 /**
  * Wraps a {@link Unit} and {@link ParseContrib} as {@link ISpoofaxParseUnit}.
  */
@@ -35,6 +37,10 @@ public class ParseUnit extends UnitWrapper implements ISpoofaxParseUnit {
         return contrib.ast;
     }
 
+    @Override public HashCode astDigest() {
+        return contrib.astDigest();
+    }
+
     @Override public Iterable<IMessage> messages() {
         return contrib.messages;
     }
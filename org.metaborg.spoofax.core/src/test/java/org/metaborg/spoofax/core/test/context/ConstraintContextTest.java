@@ -0,0 +1,190 @@
+package org.metaborg.spoofax.core.test.context;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.VFS;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.metaborg.core.context.ContextIdentifier;
+import org.metaborg.core.language.LanguageIdentifier;
+import org.metaborg.core.language.LanguageImplementation;
+import org.metaborg.core.language.LanguageVersion;
+import org.metaborg.spoofax.core.context.constraint.ConstraintContext;
+import org.metaborg.spoofax.core.context.constraint.IConstraintContext;
+import org.metaborg.util.concurrent.IClosableLock;
+import org.spoofax.interpreter.terms.IStrategoTerm;
+import org.spoofax.interpreter.terms.ITermFactory;
+import org.spoofax.terms.TermFactory;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+
+public class ConstraintContextTest {
+    private static final HashCode digest = HashCode.fromInt(1);
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ITermFactory termFactory = new TermFactory();
+    private FileObject location;
+
+
+    @Before public void setUp() throws IOException {
+        location = VFS.getManager().toFileObject(folder.getRoot());
+    }
+
+
+    @Test public void testStoresIndexAndEntryFiles() throws IOException {
+        final ConstraintContext context = context();
+        context.load();
+        try(IClosableLock lock = context.write()) {
+            put(context, "a.test", "A");
+            put(context, "b.test", "B");
+        }
+        context.persist();
+
+        assertTrue(Files.exists(storeDir().resolve("index")));
+        assertEquals(2, entryFiles().size());
+    }
+
+    @Test public void testLoadsEntriesLazily() throws IOException {
+        final ConstraintContext context = context();
+        context.load();
+        try(IClosableLock lock = context.write()) {
+            put(context, "a.test", "A");
+            put(context, "b.test", "B");
+        }
+        context.persist();
+
+        final ConstraintContext reloaded = context();
+        reloaded.load();
+        try(IClosableLock lock = reloaded.read()) {
+            assertEquals(ImmutableSet.of("a.test", "b.test"), reloaded.keySet());
+            // Remove entry files, only entries that were loaded before are still available.
+            final IConstraintContext.Entry entry = reloaded.get("a.test");
+            for(Path file : entryFiles()) {
+                Files.delete(file);
+            }
+            assertNotNull(entry);
+            assertEquals(analysis("A"), entry.analysis());
+            assertEquals(digest, entry.parseDigest());
+            assertNotNull(reloaded.get("a.test"));
+            assertNull(reloaded.get("b.test"));
+            assertEquals(ImmutableSet.of("a.test"), reloaded.keySet());
+        }
+    }
+
+    @Test public void testWritesOnlyChangedEntries() throws IOException {
+        final ConstraintContext context = context();
+        context.load();
+        try(IClosableLock lock = context.write()) {
+            put(context, "a.test", "A");
+            put(context, "b.test", "B");
+        }
+        context.persist();
+
+        final ConstraintContext reloaded = context();
+        reloaded.load();
+        try(IClosableLock lock = reloaded.write()) {
+            reloaded.get("a.test");
+            reloaded.get("b.test");
+            put(reloaded, "a.test", "A");
+            put(reloaded, "b.test", "C");
+        }
+        // Remove all files from the store, such that only files that are written again exist after persisting.
+        Files.delete(storeDir().resolve("index"));
+        for(Path file : entryFiles()) {
+            Files.delete(file);
+        }
+        reloaded.persist();
+
+        assertEquals(1, entryFiles().size());
+        assertFalse(Files.exists(storeDir().resolve("index")));
+    }
+
+    @Test public void testRemovesEntryFiles() throws IOException {
+        final ConstraintContext context = context();
+        context.load();
+        try(IClosableLock lock = context.write()) {
+            put(context, "a.test", "A");
+            put(context, "b.test", "B");
+        }
+        context.persist();
+        try(IClosableLock lock = context.write()) {
+            context.remove(context.keyResource("a.test"));
+        }
+        context.persist();
+
+        assertEquals(1, entryFiles().size());
+        final ConstraintContext reloaded = context();
+        reloaded.load();
+        try(IClosableLock lock = reloaded.read()) {
+            assertEquals(ImmutableSet.of("b.test"), reloaded.keySet());
+            assertEquals(analysis("B"), reloaded.get("b.test").analysis());
+        }
+    }
+
+    @Test public void testInitReplacesStoreOnPersist() throws IOException {
+        final ConstraintContext context = context();
+        context.load();
+        try(IClosableLock lock = context.write()) {
+            put(context, "a.test", "A");
+        }
+        context.persist();
+
+        final ConstraintContext initialized = context();
+        initialized.init();
+        assertEquals(1, entryFiles().size());
+        initialized.persist();
+
+        assertTrue(entryFiles().isEmpty());
+        final ConstraintContext reloaded = context();
+        reloaded.load();
+        try(IClosableLock lock = reloaded.read()) {
+            assertTrue(reloaded.keySet().isEmpty());
+        }
+    }
+
+
+    private ConstraintContext context() {
+        final LanguageImplementation language = new LanguageImplementation(
+            new LanguageIdentifier("org.example", "test", new LanguageVersion(1)), null);
+        return new ConstraintContext(null, new ContextIdentifier(location, null, language));
+    }
+
+    private void put(IConstraintContext context, String resource, String analysis) {
+        final List<String> exceptions = Collections.emptyList();
+        context.put(resource, digest, null, analysis(analysis), termFactory.makeList(), termFactory.makeList(),
+            termFactory.makeList(), exceptions);
+    }
+
+    private IStrategoTerm analysis(String name) {
+        return termFactory.makeAppl(termFactory.makeConstructor(name, 0));
+    }
+
+    private Path storeDir() throws IOException {
+        try(final Stream<Path> files = Files.walk(folder.getRoot().toPath().resolve("target"))) {
+            return files.filter(file -> file.getFileName().toString().equals("constraint-store")).findFirst().get();
+        }
+    }
+
+    private List<Path> entryFiles() throws IOException {
+        try(final Stream<Path> files = Files.list(storeDir())) {
+            return files.filter(file -> file.toString().endsWith(".entry")).collect(Collectors.toList());
+        }
+    }
+}
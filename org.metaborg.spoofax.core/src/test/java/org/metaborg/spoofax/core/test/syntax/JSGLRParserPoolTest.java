@@ -0,0 +1,195 @@
+package org.metaborg.spoofax.core.test.syntax;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+
+import org.apache.commons.vfs2.FileObject;
+import org.junit.After;
+import org.junit.Test;
+import org.metaborg.spoofax.core.syntax.JSGLRI;
+import org.metaborg.spoofax.core.syntax.JSGLRParserConfiguration;
+import org.metaborg.spoofax.core.syntax.JSGLRParserPool;
+import org.metaborg.spoofax.core.unit.ParseContrib;
+import org.spoofax.jsglr.shared.BadTokenException;
+
+import com.google.common.collect.Lists;
+
+public class JSGLRParserPoolTest {
+    private static final long timeout = 10;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+
+    @After public void tearDown() {
+        executor.shutdownNow();
+    }
+
+
+    @Test public void testReusesReleasedParser() throws Exception {
+        final AtomicInteger created = new AtomicInteger();
+        final JSGLRParserPool pool = new JSGLRParserPool(() -> {
+            created.incrementAndGet();
+            return new TestParser();
+        }, 2);
+
+        final JSGLRI<?> first = pool.acquire();
+        pool.release(first);
+        assertSame(first, pool.acquire());
+        assertEquals(1, created.get());
+    }
+
+    @Test public void testPrefersParserThatLastParsedResource() throws Exception {
+        final JSGLRParserPool pool = new JSGLRParserPool(TestParser::new, 2);
+
+        final JSGLRI<?> first = pool.acquire("a");
+        final JSGLRI<?> second = pool.acquire("b");
+        pool.release(first);
+        pool.release(second);
+        assertSame(second, pool.acquire("b"));
+        assertSame(first, pool.acquire("a"));
+    }
+
+    @Test public void testAcquiresOtherParserWhenLastParserInUse() throws Exception {
+        final JSGLRParserPool pool = new JSGLRParserPool(TestParser::new, 2);
+
+        final JSGLRI<?> first = pool.acquire("a");
+        final JSGLRI<?> second = pool.acquire("a");
+        assertNotSame(first, second);
+        pool.release(first);
+        pool.release(second);
+        assertSame(second, pool.acquire("a"));
+    }
+
+    @Test public void testCreatesParsersUpToMaximum() throws Exception {
+        final JSGLRParserPool pool = new JSGLRParserPool(TestParser::new, 2);
+
+        final JSGLRI<?> first = pool.acquire();
+        final JSGLRI<?> second = pool.acquire();
+        assertNotSame(first, second);
+
+        final Future<JSGLRI<?>> third = executor.submit(pool::acquire);
+        Thread.sleep(50);
+        assertFalse("Acquire must wait when all parsers are in use", third.isDone());
+        pool.release(second);
+        assertSame(second, third.get(timeout, TimeUnit.SECONDS));
+    }
+
+    @Test public void testLimitsParsersUnderContention() throws Exception {
+        final int maxSize = 3;
+        final AtomicInteger created = new AtomicInteger();
+        final AtomicInteger inUse = new AtomicInteger();
+        final AtomicInteger maxInUse = new AtomicInteger();
+        final JSGLRParserPool pool = new JSGLRParserPool(() -> {
+            created.incrementAndGet();
+            return new TestParser();
+        }, maxSize);
+
+        final List<Future<?>> futures = Lists.newArrayList();
+        for(int i = 0; i < 16; ++i) {
+            futures.add(executor.submit(() -> {
+                for(int j = 0; j < 100; ++j) {
+                    final JSGLRI<?> parser = pool.acquire();
+                    try {
+                        maxInUse.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+                        Thread.yield();
+                    } finally {
+                        inUse.decrementAndGet();
+                        pool.release(parser);
+                    }
+                }
+                return null;
+            }));
+        }
+        for(Future<?> future : futures) {
+            future.get(timeout, TimeUnit.SECONDS);
+        }
+
+        assertTrue(created.get() <= maxSize);
+        assertTrue(maxInUse.get() <= maxSize);
+    }
+
+    @Test public void testFailedCreateDoesNotTakeSlot() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger();
+        final JSGLRParserPool pool = new JSGLRParserPool(() -> {
+            if(attempts.incrementAndGet() == 1) {
+                throw new IOException("failure");
+            }
+            return new TestParser();
+        }, 1);
+
+        try {
+            pool.acquire();
+            fail("Expected creating the parser to fail");
+        } catch(IOException e) {
+            // Expected.
+        }
+        assertNotNull(pool.acquire());
+    }
+
+    @Test public void testWaitingAcquireCreatesParserWhenCreateFails() throws Exception {
+        final CountDownLatch creating = new CountDownLatch(1);
+        final CountDownLatch failCreate = new CountDownLatch(1);
+        final AtomicInteger attempts = new AtomicInteger();
+        final JSGLRParserPool pool = new JSGLRParserPool(() -> {
+            if(attempts.incrementAndGet() == 1) {
+                creating.countDown();
+                try {
+                    failCreate.await();
+                } catch(InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IOException("failure");
+            }
+            return new TestParser();
+        }, 1);
+
+        final Future<JSGLRI<?>> failing = executor.submit(pool::acquire);
+        assertTrue(creating.await(timeout, TimeUnit.SECONDS));
+        final Future<JSGLRI<?>> waiting = executor.submit(pool::acquire);
+        failCreate.countDown();
+
+        try {
+            failing.get(timeout, TimeUnit.SECONDS);
+            fail("Expected creating the parser to fail");
+        } catch(ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        assertNotNull(waiting.get(timeout, TimeUnit.SECONDS));
+    }
+
+
+    private static class TestParser extends JSGLRI<Object> {
+        public TestParser() {
+            super(null, null, null, null);
+        }
+
+
+        @Override public ParseContrib parse(@Nullable JSGLRParserConfiguration parserConfig,
+            @Nullable FileObject resource, String input) {
+            return null;
+        }
+
+        @Override public Set<BadTokenException> getCollectedErrors() {
+            return Collections.emptySet();
+        }
+    }
+}
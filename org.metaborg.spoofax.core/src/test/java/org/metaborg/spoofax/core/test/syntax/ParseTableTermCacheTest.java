@@ -0,0 +1,121 @@
+package org.metaborg.spoofax.core.test.syntax;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.VFS;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.metaborg.spoofax.core.syntax.ParseTableTermCache;
+import org.spoofax.interpreter.terms.IStrategoTerm;
+import org.spoofax.interpreter.terms.ITermFactory;
+import org.spoofax.terms.TermFactory;
+
+public class ParseTableTermCacheTest {
+    private static final String table =
+        "parse-table(6, 0, [Label(1, 2.5, \"str\\\"ing\"), (\"a\", [])], states([state(0, [], [])]){Ann(\"x\")}, "
+            + "[Label(1, 2.5, \"str\\\"ing\"), -3])";
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ITermFactory termFactory = new TermFactory();
+    private Path cacheDir;
+
+
+    @Before public void setUp() throws IOException {
+        cacheDir = folder.getRoot().toPath().resolve("cache");
+        System.setProperty(ParseTableTermCache.cacheDirProperty, cacheDir.toString());
+    }
+
+    @After public void tearDown() {
+        System.clearProperty(ParseTableTermCache.cacheDirProperty);
+        System.clearProperty(ParseTableTermCache.cacheSizeProperty);
+    }
+
+
+    @Test public void testRoundTrip() throws IOException {
+        final FileObject resource = tableFile("table.tbl", table);
+        final IStrategoTerm parsed = ParseTableTermCache.read(resource, termFactory);
+        assertEquals(1, cacheFiles().size());
+
+        final IStrategoTerm cached = ParseTableTermCache.read(resource, termFactory);
+        assertEquals(parsed, cached);
+        assertEquals(parsed.toString(), cached.toString());
+        assertEquals(parsed.getSubterm(3).getAnnotations(), cached.getSubterm(3).getAnnotations());
+    }
+
+    @Test public void testRewritesCorruptCacheFile() throws IOException {
+        final FileObject resource = tableFile("table.tbl", table);
+        final IStrategoTerm parsed = ParseTableTermCache.read(resource, termFactory);
+        final Path cacheFile = cacheFiles().get(0);
+        Files.write(cacheFile, new byte[] { 1, 2, 3 });
+
+        assertEquals(parsed, ParseTableTermCache.read(resource, termFactory));
+        assertEquals(parsed, ParseTableTermCache.read(resource, termFactory));
+        assertTrue(Files.size(cacheFile) > 3);
+    }
+
+    @Test public void testDisabledCache() throws IOException {
+        System.setProperty(ParseTableTermCache.cacheDirProperty, "");
+        final FileObject resource = tableFile("table.tbl", table);
+        ParseTableTermCache.read(resource, termFactory);
+        assertFalse(Files.exists(cacheDir));
+    }
+
+    @Test public void testDisabledWithoutProperty() throws IOException {
+        System.clearProperty(ParseTableTermCache.cacheDirProperty);
+        final FileObject resource = tableFile("table.tbl", table);
+        ParseTableTermCache.read(resource, termFactory);
+        assertFalse(Files.exists(cacheDir));
+    }
+
+    @Test public void testDeletesLeastRecentlyUsedFiles() throws IOException {
+        System.setProperty(ParseTableTermCache.cacheSizeProperty, "1");
+        ParseTableTermCache.read(tableFile("first.tbl", "first"), termFactory);
+        ParseTableTermCache.read(tableFile("second.tbl", "second"), termFactory);
+        assertEquals(1, cacheFiles().size());
+    }
+
+    @Test public void testCreatesOwnerOnlyDirectory() throws IOException {
+        assumeTrue(cacheDir.getFileSystem().supportedFileAttributeViews().contains("posix"));
+        ParseTableTermCache.read(tableFile("table.tbl", table), termFactory);
+        assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(cacheDir)));
+    }
+
+    @Test public void testIgnoresDirectoryWritableByOthers() throws IOException {
+        assumeTrue(cacheDir.getFileSystem().supportedFileAttributeViews().contains("posix"));
+        Files.createDirectories(cacheDir);
+        Files.setPosixFilePermissions(cacheDir, PosixFilePermissions.fromString("rwxrwxrwx"));
+        ParseTableTermCache.read(tableFile("table.tbl", table), termFactory);
+        assertTrue(cacheFiles().isEmpty());
+    }
+
+
+    private FileObject tableFile(String name, String content) throws IOException {
+        final File file = folder.newFile(name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return VFS.getManager().toFileObject(file);
+    }
+
+    private List<Path> cacheFiles() throws IOException {
+        try(final Stream<Path> files = Files.list(cacheDir)) {
+            return files.filter(file -> file.toString().endsWith(".bin")).collect(Collectors.toList());
+        }
+    }
+}
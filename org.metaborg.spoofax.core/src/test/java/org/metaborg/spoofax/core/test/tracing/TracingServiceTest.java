@@ -0,0 +1,158 @@
+package org.metaborg.spoofax.core.test.tracing;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+
+import javax.annotation.Nullable;
+
+import org.junit.Test;
+import org.metaborg.core.source.ISourceRegion;
+import org.metaborg.core.source.SourceRegion;
+import org.metaborg.spoofax.core.tracing.TracingService;
+import org.spoofax.interpreter.terms.IStrategoTerm;
+import org.spoofax.interpreter.terms.ITermFactory;
+import org.spoofax.jsglr.client.imploder.IToken;
+import org.spoofax.jsglr.client.imploder.ImploderAttachment;
+import org.spoofax.terms.TermFactory;
+import org.spoofax.terms.util.TermUtils;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Compares the region queries of the tracing service against the AST traversals it used before indexing regions.
+ */
+public class TracingServiceTest {
+    private final ITermFactory termFactory = new TermFactory();
+    private final TracingService tracingService = new TracingService(null);
+
+    private int termCount;
+    private int length;
+
+
+    @Test public void testToTermsEqualsTraversal() {
+        for(int seed = 0; seed < 20; ++seed) {
+            final IStrategoTerm ast = ast(new Random(seed));
+            for(ISourceRegion region : regions()) {
+                assertEquals("Terms containing " + region + " in AST " + seed, containing(ast, region),
+                    Lists.newArrayList(tracingService.toTerms(ast, region)));
+            }
+        }
+    }
+
+    @Test public void testToTermsWithinEqualsTraversal() {
+        for(int seed = 0; seed < 20; ++seed) {
+            final IStrategoTerm ast = ast(new Random(seed));
+            for(ISourceRegion region : regions()) {
+                assertEquals("Terms within " + region + " in AST " + seed, within(ast, region),
+                    Lists.newArrayList(tracingService.toTermsWithin(ast, region)));
+            }
+        }
+    }
+
+    @Test public void testIgnoresTermsWithoutRegion() {
+        final IStrategoTerm inner = located(termFactory.makeAppl(termFactory.makeConstructor("Inner", 0)), 2, 3);
+        final IStrategoTerm ast = termFactory.makeAppl(termFactory.makeConstructor("Outer", 1), inner);
+
+        assertEquals(Lists.newArrayList(inner),
+            Lists.newArrayList(tracingService.toTerms(ast, new SourceRegion(2, 3))));
+        assertEquals(Lists.newArrayList(inner),
+            Lists.newArrayList(tracingService.toTermsWithin(ast, new SourceRegion(0, 10))));
+    }
+
+
+    /**
+     * Creates a random AST where terms are nested by their regions, some terms have no region, and some terms are
+     * singleton lists that share the region of their element.
+     */
+    private IStrategoTerm ast(Random random) {
+        termCount = 0;
+        length = 40 + random.nextInt(40);
+        return term(random, 0, length, 0);
+    }
+
+    private IStrategoTerm term(Random random, int startOffset, int endOffset, int depth) {
+        final List<IStrategoTerm> subterms = Lists.newArrayList();
+        int offset = startOffset;
+        while(depth < 5 && offset < endOffset && random.nextInt(3) != 0) {
+            final int subtermStart = offset + random.nextInt(3);
+            final int subtermEnd = Math.min(endOffset, subtermStart + random.nextInt(12));
+            if(subtermStart > subtermEnd) {
+                break;
+            }
+            subterms.add(term(random, subtermStart, subtermEnd, depth + 1));
+            offset = subtermEnd + 1;
+        }
+
+        final IStrategoTerm term;
+        final int kind = random.nextInt(8);
+        if(kind == 0 && subterms.size() == 1) {
+            term = termFactory.makeList(subterms.get(0));
+        } else {
+            term = termFactory.makeAppl(termFactory.makeConstructor("T" + termCount++, subterms.size()),
+                subterms.toArray(new IStrategoTerm[0]));
+        }
+        if(kind == 1) {
+            return term;
+        }
+        return located(term, startOffset, endOffset);
+    }
+
+    private IStrategoTerm located(IStrategoTerm term, int startOffset, int endOffset) {
+        term.putAttachment(ImploderAttachment.createCompactPositionAttachment("test", 0, 0, startOffset, endOffset));
+        return term;
+    }
+
+    private List<ISourceRegion> regions() {
+        final List<ISourceRegion> regions = Lists.newArrayList();
+        for(int startOffset = -1; startOffset <= length + 1; ++startOffset) {
+            for(int endOffset = startOffset - 1; endOffset <= length + 1; ++endOffset) {
+                regions.add(new SourceRegion(startOffset, endOffset));
+            }
+        }
+        return regions;
+    }
+
+
+    /**
+     * All terms whose region contains given region, in bottom-up order.
+     */
+    private List<IStrategoTerm> containing(IStrategoTerm term, ISourceRegion region) {
+        final List<IStrategoTerm> terms = Lists.newArrayList();
+        for(IStrategoTerm subterm : term.getSubterms()) {
+            terms.addAll(containing(subterm, region));
+        }
+        final ISourceRegion termRegion = region(term);
+        if(termRegion != null && termRegion.contains(region)) {
+            terms.add(term);
+        }
+        return terms;
+    }
+
+    /**
+     * Outermost terms whose region is within given region, trying the element instead of singleton lists, in
+     * top-down order.
+     */
+    private List<IStrategoTerm> within(IStrategoTerm term, ISourceRegion region) {
+        final List<IStrategoTerm> terms = Lists.newArrayList();
+        final ISourceRegion termRegion = region(term);
+        if(!TermUtils.isList(term, 1) && termRegion != null && region.contains(termRegion)) {
+            terms.add(term);
+            return terms;
+        }
+        for(IStrategoTerm subterm : term.getSubterms()) {
+            terms.addAll(within(subterm, region));
+        }
+        return terms;
+    }
+
+    private static @Nullable ISourceRegion region(IStrategoTerm term) {
+        final IToken left = ImploderAttachment.getLeftToken(term);
+        final IToken right = ImploderAttachment.getRightToken(term);
+        if(left == null || right == null) {
+            return null;
+        }
+        return new SourceRegion(left.getStartOffset(), right.getEndOffset());
+    }
+}